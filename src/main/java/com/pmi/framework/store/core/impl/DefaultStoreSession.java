@@ -7,7 +7,6 @@ import org.elasticsearch.index.query.xcontent.XContentQueryBuilder;
 import org.elasticsearch.indices.IndexMissingException;
 import org.elasticsearch.osem.core.ObjectContext;
 import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.transport.RemoteTransportException;
 
 import com.pmi.framework.store.core.IdentifierNotFoundException;
@@ -75,11 +74,11 @@ public class DefaultStoreSession implements StoreSession {
         return (T) context.read(hit);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public <T> T get(Class<T> clazz, String id) throws StoreException {
-        String source = client.prepareGet(index, context.getType(clazz), id).execute().actionGet().sourceAsString();
-        return (T) get(new InternalSearchHit(1, id, context.getType(clazz), source.getBytes(), null));
+        // Reading the source bytes as is, they may be binary encoded
+        byte[] source = client.prepareGet(index, context.getType(clazz), id).execute().actionGet().source();
+        return context.read(clazz, id, source, 0, source.length);
     }
 
     @Override
@@ -0,0 +1,39 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.annotations;
+
+/**
+ * Specifies how the properties of a searchable class are discovered and accessed.
+ *
+ * @author alois.cochard
+ *
+ */
+public enum Access {
+
+    /**
+     * JavaBeans properties, read and written through their getter and setter.
+     */
+    PROPERTY,
+
+    /**
+     * Non-static and non-transient fields, read and written directly. Annotations are declared on fields.
+     */
+    FIELD,
+
+}
@@ -38,4 +38,9 @@ public @interface Searchable {
 
     String alias() default "";
 
+    /**
+     * How properties are discovered and accessed. Defaults to JavaBeans properties.
+     */
+    Access access() default Access.PROPERTY;
+
 }
@@ -28,4 +28,6 @@ public interface SearchableAttribute {
 
     String getAlias();
 
+    Access getAccess();
+
 }
@@ -39,9 +39,15 @@ public @interface Serializable {
     String nullValue() default "";
 
     /**
-     * The date format. Defaults to 'date_optional_time'.<br>
+     * The date format. Defaults to 'date_optional_time', 'millis' writes the epoch milliseconds.<br>
      * <i>Used for field of type DATE.</i>
      * @see <a href="http://www.elasticsearch.com/docs/elasticsearch/mapping/date_format/">List of defaults date formats</a>
      */
     String format() default "date_optional_time";
+
+    /**
+     * The property holds pre-rendered JSON, as a String or a byte[], which is written verbatim
+     * and read back from the source without being mapped.
+     */
+    boolean raw() default false;
 }
\ No newline at end of file
@@ -28,4 +28,6 @@ public interface SerializableAttribute {
     String getNullValue();
 
     String getFormat();
+
+    boolean isRaw();
 }
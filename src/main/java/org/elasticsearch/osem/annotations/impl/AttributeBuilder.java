@@ -35,6 +35,7 @@ public class AttributeBuilder {
     public static SearchableAttribute build(Searchable searchable) {
         SearchableAttributeImpl searchableAttr = new SearchableAttributeImpl();
         searchableAttr.setAlias(!searchable.alias().equals("") ? searchable.alias() : null);
+        searchableAttr.setAccess(searchable.access());
         return searchableAttr;
     }
 
@@ -42,6 +43,7 @@ public class AttributeBuilder {
         SerializableAttributeImpl serializableAttr = new SerializableAttributeImpl();
         serializableAttr.setFormat(!serializable.format().equals("") ? serializable.format() : null);
         serializableAttr.setNullValue(!serializable.nullValue().equals("") ? serializable.nullValue() : null);
+        serializableAttr.setRaw(serializable.raw());
         return serializableAttr;
     }
 
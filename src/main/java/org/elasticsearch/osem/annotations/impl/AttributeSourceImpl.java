@@ -23,7 +23,9 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -36,6 +38,7 @@ import java.util.concurrent.ConcurrentMap;
 
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.osem.annotations.Access;
 import org.elasticsearch.osem.annotations.AttributeSource;
 import org.elasticsearch.osem.annotations.Exclude;
 import org.elasticsearch.osem.annotations.Index;
@@ -47,6 +50,7 @@ import org.elasticsearch.osem.annotations.Serializable;
 import org.elasticsearch.osem.annotations.SerializableAttribute;
 import org.elasticsearch.osem.common.springframework.core.annotation.AnnotationUtils;
 import org.elasticsearch.osem.core.ObjectContextException;
+import org.elasticsearch.osem.property.FieldPropertyDescriptor;
 
 /**
  * 
@@ -92,6 +96,24 @@ public class AttributeSourceImpl implements AttributeSource {
         return descriptors;
     }
 
+    private static Collection<PropertyDescriptor> getFieldDescriptors(Class<?> clazz) {
+        Collection<PropertyDescriptor> descriptors = new ArrayList<PropertyDescriptor>();
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                try {
+                    descriptors.add(new FieldPropertyDescriptor(field));
+                } catch (IntrospectionException e) {
+                    throw new ObjectContextException("Unable to introspect field '" + field + "'", e);
+                }
+            }
+        }
+        return descriptors;
+    }
+
     @Override
     public Collection<PropertyDescriptor> getProperties(Class<?> clazz) {
         return getClassProperties(clazz).values();
@@ -198,6 +220,9 @@ public class AttributeSourceImpl implements AttributeSource {
     }
 
     private <A extends Annotation> A getAnnotation(PropertyDescriptor property, Class<A> annotationType) {
+        if (property instanceof FieldPropertyDescriptor) {
+            return ((FieldPropertyDescriptor) property).getField().getAnnotation(annotationType);
+        }
         // Look for annotation on setter only
         Method setter = property.getWriteMethod();
         if (setter != null) {
@@ -210,7 +235,9 @@ public class AttributeSourceImpl implements AttributeSource {
         Map<String, PropertyDescriptor> properties = classProperties.get(clazz);
         if (properties == null) {
             properties = new HashMap<String, PropertyDescriptor>();
-            for (PropertyDescriptor property : getPropertyDescriptors(clazz)) {
+            SearchableAttribute searchable = getSearchableAttribute(clazz);
+            boolean fields = searchable != null && searchable.getAccess() == Access.FIELD;
+            for (PropertyDescriptor property : fields ? getFieldDescriptors(clazz) : getPropertyDescriptors(clazz)) {
                 String name = null;
                 IndexableAttribute attribute = getIndexableAttribute(property);
                 if (attribute != null && attribute.getIndexName() != null) {
@@ -254,7 +281,7 @@ public class AttributeSourceImpl implements AttributeSource {
     private boolean isExcluded(PropertyDescriptor property) {
         Boolean excluded = excludedProperties.get(property);
         if (excluded == null) {
-            if (property.getWriteMethod() == null) {
+            if (property.getWriteMethod() == null && !(property instanceof FieldPropertyDescriptor)) {
                 // TODO [alois.cochard] warn about ignored properties
                 excluded = true;
             } else {
@@ -269,9 +296,10 @@ public class AttributeSourceImpl implements AttributeSource {
                         annotationTypes.add(Indexable.class);
                     }
                     for (Class<?> annotationType : annotationTypes) {
+                        Class<?> declaringClass = property instanceof FieldPropertyDescriptor ? ((FieldPropertyDescriptor) property)
+                                .getField().getDeclaringClass() : property.getWriteMethod().getDeclaringClass();
                         logger.warn("The property '{}' of class '{}' have both @Exclude and @{}, @{} will be ignored", property.getName(),
-                                property.getWriteMethod().getDeclaringClass().getName(), annotationType.getSimpleName(),
-                                annotationType.getSimpleName());
+                                declaringClass.getName(), annotationType.getSimpleName(), annotationType.getSimpleName());
                     }
                 }
             }
@@ -18,6 +18,7 @@
  */
 package org.elasticsearch.osem.annotations.impl;
 
+import org.elasticsearch.osem.annotations.Access;
 import org.elasticsearch.osem.annotations.SearchableAttribute;
 
 /**
@@ -30,6 +31,8 @@ public class SearchableAttributeImpl implements SearchableAttribute {
 
     private String alias = null;
 
+    private Access access = Access.PROPERTY;
+
     @Override
     public String getAlias() {
         return alias;
@@ -40,4 +43,14 @@ public class SearchableAttributeImpl implements SearchableAttribute {
         return this;
     }
 
+    @Override
+    public Access getAccess() {
+        return access;
+    }
+
+    public SearchableAttributeImpl setAccess(Access access) {
+        this.access = access;
+        return this;
+    }
+
 }
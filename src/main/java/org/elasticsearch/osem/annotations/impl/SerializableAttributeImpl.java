@@ -31,6 +31,8 @@ public class SerializableAttributeImpl implements SerializableAttribute {
 
     private String nullValue;
 
+    private boolean raw;
+
     @Override
     public String getFormat() {
         return format;
@@ -41,6 +43,11 @@ public class SerializableAttributeImpl implements SerializableAttribute {
         return nullValue;
     }
 
+    @Override
+    public boolean isRaw() {
+        return raw;
+    }
+
     public SerializableAttributeImpl setFormat(String format) {
         this.format = format;
         return this;
@@ -51,4 +58,9 @@ public class SerializableAttributeImpl implements SerializableAttribute {
         return this;
     }
 
+    public SerializableAttributeImpl setRaw(boolean raw) {
+        this.raw = raw;
+        return this;
+    }
+
 }
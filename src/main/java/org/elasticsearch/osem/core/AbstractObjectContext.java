@@ -18,12 +18,17 @@
  */
 package org.elasticsearch.osem.core;
 
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
 
 /**
  * 
@@ -58,6 +63,36 @@ public abstract class AbstractObjectContext implements ObjectContext {
         return (T) reader.read(response);
     }
 
+    @Override
+    public <T> T readInto(SearchHit hit, T target) throws ObjectContextDeserializationException {
+        return reader.readInto(hit, target);
+    }
+
+    @Override
+    public <T> List<T> readAll(SearchHits hits, List<T> targets) throws ObjectContextDeserializationException {
+        return reader.readAll(hits, targets);
+    }
+
+    @Override
+    public <T> T read(Class<T> clazz, String id, byte[] source, int offset, int length) throws ObjectContextDeserializationException {
+        return reader.read(clazz, id, source, offset, length);
+    }
+
+    @Override
+    public <T> T read(SearchHit hit, Class<T> clazz, String... properties) throws ObjectContextDeserializationException {
+        return reader.read(hit, clazz, properties);
+    }
+
+    @Override
+    public <T> List<T> readAll(SearchHits hits) throws ObjectContextDeserializationException {
+        return reader.readAll(hits);
+    }
+
+    @Override
+    public <T> List<T> readAll(SearchHits hits, Executor executor) throws ObjectContextDeserializationException {
+        return reader.readAll(hits, executor);
+    }
+
     @Override
     public String getId(Object object) throws ObjectContextMappingException {
         check(object.getClass());
@@ -87,6 +122,41 @@ public abstract class AbstractObjectContext implements ObjectContext {
         return writer.write(object);
     }
 
+    @Override
+    public void write(Object object, OutputStream stream) throws ObjectContextSerializationException {
+        check(object.getClass());
+        writer.write(object, stream);
+    }
+
+    @Override
+    public XContentBuilder write(Object object, XContentBuilder builder) throws ObjectContextSerializationException {
+        check(object.getClass());
+        return writer.write(object, builder);
+    }
+
+    @Override
+    public List<XContentBuilder> writeAll(Collection<?> objects) throws ObjectContextSerializationException {
+        check(objects);
+        return writer.writeAll(objects);
+    }
+
+    @Override
+    public List<XContentBuilder> writeAll(Collection<?> objects, Executor executor) throws ObjectContextSerializationException {
+        check(objects);
+        return writer.writeAll(objects, executor);
+    }
+
+    @Override
+    public void release(XContentBuilder builder) {
+        writer.release(builder);
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+        reader.close();
+    }
+
     @Override
     public boolean isRegistred(Class<?> clazz) {
         return types.contains(clazz);
@@ -94,11 +164,17 @@ public abstract class AbstractObjectContext implements ObjectContext {
 
     @Override
     public ObjectContext add(Class<?> clazz) {
-        types.add(clazz);
         mapper.add(clazz);
+        types.add(clazz);
         return this;
     }
 
+    private void check(Collection<?> objects) {
+        for (Object object : objects) {
+            check(object.getClass());
+        }
+    }
+
     private void check(Class<?> clazz) {
         if (!isRegistred(clazz)) {
             throw new ObjectContextTypeException(clazz);
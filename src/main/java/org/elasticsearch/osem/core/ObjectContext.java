@@ -18,6 +18,8 @@
  */
 package org.elasticsearch.osem.core;
 
+import org.elasticsearch.common.settings.Settings;
+
 /**
  * 
  * @author alois.cochard
@@ -25,4 +27,5 @@ package org.elasticsearch.osem.core;
  */
 public interface ObjectContext extends ObjectContextMapper, ObjectContextWriter, ObjectContextReader {
 
+    Settings getSettings();
 }
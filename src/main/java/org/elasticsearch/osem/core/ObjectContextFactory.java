@@ -18,6 +18,7 @@
  */
 package org.elasticsearch.osem.core;
 
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.osem.core.impl.ObjectContextImpl;
 
 /**
@@ -31,4 +32,8 @@ public class ObjectContextFactory {
     return new ObjectContextImpl();
   }
 
+  public static ObjectContext create(Settings settings) {
+    return new ObjectContextImpl(settings);
+  }
+
 }
@@ -23,12 +23,51 @@ package org.elasticsearch.osem.core;
  * @author alois.cochard
  *
  */
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
 
 public interface ObjectContextReader {
 
     <T> T read(SearchHit hit) throws ObjectContextDeserializationException;
 
     <T> T read(GetResponse response) throws ObjectContextDeserializationException;
+
+    /**
+     * Read the hit into the target, reusing its collections, maps and nested objects, properties missing from
+     * the hit being reset. A new object is returned when the hit holds another class.
+     */
+    <T> T readInto(SearchHit hit, T target) throws ObjectContextDeserializationException;
+
+    /**
+     * Read an object from the given range of its source, e.g. the source of a get response, without copying it.
+     */
+    <T> T read(Class<T> clazz, String id, byte[] source, int offset, int length) throws ObjectContextDeserializationException;
+
+    /**
+     * Read only the given properties, by their field name, from the source of the hit or from its fields
+     * when the search didn't return the source.
+     */
+    <T> T read(SearchHit hit, Class<T> clazz, String... properties) throws ObjectContextDeserializationException;
+
+    /**
+     * Read the hits in hit order, in batches on the configured executor once there are more hits
+     * than the parallel threshold, or on the calling thread if no executor is configured.
+     */
+    <T> List<T> readAll(SearchHits hits) throws ObjectContextDeserializationException;
+
+    <T> List<T> readAll(SearchHits hits, Executor executor) throws ObjectContextDeserializationException;
+
+    /**
+     * Read the hits into the targets, in order, on the calling thread. Hits without target are read into new objects.
+     */
+    <T> List<T> readAll(SearchHits hits, List<T> targets) throws ObjectContextDeserializationException;
+
+    /**
+     * Shut down the threads started for the configured executor, pages can't be read on it once closed.
+     */
+    void close();
 }
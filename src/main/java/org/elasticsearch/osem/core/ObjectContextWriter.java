@@ -18,6 +18,11 @@
  */
 package org.elasticsearch.osem.core;
 
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 /**
@@ -28,4 +33,33 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 public interface ObjectContextWriter {
 
     XContentBuilder write(Object object) throws ObjectContextSerializationException;
+
+    /**
+     * Write the object to the stream, which is flushed but left open.
+     */
+    void write(Object object, OutputStream stream) throws ObjectContextSerializationException;
+
+    /**
+     * Append the object to the builder, allowing many objects to be written in the same buffer.
+     */
+    XContentBuilder write(Object object, XContentBuilder builder) throws ObjectContextSerializationException;
+
+    /**
+     * Write the objects in batches on the configured executor, or on the calling thread if none.
+     * The builders are returned in input order, each one having its own buffer.
+     */
+    List<XContentBuilder> writeAll(Collection<?> objects) throws ObjectContextSerializationException;
+
+    List<XContentBuilder> writeAll(Collection<?> objects, Executor executor) throws ObjectContextSerializationException;
+
+    /**
+     * Give back a builder returned by {@link #write(Object)} once its content has been consumed,
+     * allowing its buffer to be reused when pooling is enabled.
+     */
+    void release(XContentBuilder builder);
+
+    /**
+     * Shut down the threads started for the configured executor, batches can't be written on it once closed.
+     */
+    void close();
 }
@@ -0,0 +1,76 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.core.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.elasticsearch.osem.core.ObjectContextException;
+
+/**
+ * Splits a range of items in batches run on an executor, shared by the writer and the reader.
+ *
+ * @author alois.cochard
+ *
+ */
+final class Batches {
+
+    interface Batch {
+
+        void run(int from, int to);
+    }
+
+    private Batches() {
+    }
+
+    /**
+     * Run the batches on the executor and wait for all of them, rethrowing the first failure.
+     */
+    static void run(Executor executor, int length, int batchSize, final Batch batch, String action) {
+        List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>();
+        for (int i = 0; i < length; i += batchSize) {
+            final int from = i;
+            final int to = Math.min(i + batchSize, length);
+            FutureTask<Object> task = new FutureTask<Object>(new Runnable() {
+                @Override
+                public void run() {
+                    batch.run(from, to);
+                }
+            }, null);
+            tasks.add(task);
+            executor.execute(task);
+        }
+        for (FutureTask<Object> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ObjectContextException(String.format("Interrupted while %s objects", action), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new ObjectContextException(String.format("Unable to complete %s objects", action), e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.core.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.elasticsearch.common.io.FastByteArrayOutputStream;
+import org.elasticsearch.common.xcontent.XContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+/**
+ * Bounded pool of the buffers backing the builders returned by the writer.
+ * <p>
+ * Generators can't be reset once closed, so only the buffers are recycled, a buffer being
+ * accepted back once per lease and dropped when it has grown over the retained size.
+ *
+ * @author alois.cochard
+ *
+ */
+final class BuilderPool {
+
+    private static final class PooledBuffer extends FastByteArrayOutputStream {
+
+        final BuilderPool pool;
+
+        final AtomicBoolean leased = new AtomicBoolean();
+
+        PooledBuffer(BuilderPool pool, int size) {
+            super(size);
+            this.pool = pool;
+        }
+    }
+
+    private final XContent content;
+
+    private final BlockingQueue<PooledBuffer> buffers;
+
+    private final int bufferSize;
+
+    private final int maxBufferSize;
+
+    BuilderPool(XContent content, int size, int bufferSize, int maxBufferSize) {
+        this.content = content;
+        this.buffers = new ArrayBlockingQueue<PooledBuffer>(size);
+        this.bufferSize = bufferSize;
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    XContentBuilder acquire() throws IOException {
+        PooledBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new PooledBuffer(this, bufferSize);
+        } else {
+            buffer.reset();
+        }
+        buffer.leased.set(true);
+        return new XContentBuilder(content, buffer);
+    }
+
+    boolean release(XContentBuilder builder) {
+        OutputStream stream;
+        try {
+            stream = builder.unsafeStream();
+        } catch (IOException e) {
+            return false;
+        }
+        if (!(stream instanceof PooledBuffer)) {
+            return false;
+        }
+        PooledBuffer buffer = (PooledBuffer) stream;
+        if (buffer.pool != this || !buffer.leased.compareAndSet(true, false)) {
+            // Not leased by this pool, or already released
+            return false;
+        }
+        if (buffer.unsafeByteArray().length > maxBufferSize) {
+            return false;
+        }
+        return buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.core.impl;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collections read on first access, from the content kept by the reader.
+ *
+ * @author alois.cochard
+ *
+ */
+final class LazyCollections {
+
+    interface Loader {
+
+        Collection<Object> load();
+    }
+
+    private LazyCollections() {
+    }
+
+    static final class LazyList<E> extends AbstractList<E> {
+
+        private Loader loader;
+
+        private volatile List<E> list;
+
+        LazyList(Loader loader) {
+            this.loader = loader;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<E> list() {
+            List<E> list = this.list;
+            if (list == null) {
+                // Loaded once, readers of a published object seeing the elements like with an eager collection
+                synchronized (this) {
+                    list = this.list;
+                    if (list == null) {
+                        list = (List<E>) loader.load();
+                        this.list = list;
+                        loader = null;
+                    }
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public E get(int index) {
+            return list().get(index);
+        }
+
+        @Override
+        public int size() {
+            return list().size();
+        }
+
+        @Override
+        public E set(int index, E element) {
+            return list().set(index, element);
+        }
+
+        @Override
+        public void add(int index, E element) {
+            list().add(index, element);
+        }
+
+        @Override
+        public E remove(int index) {
+            return list().remove(index);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return list().iterator();
+        }
+    }
+
+    static final class LazySet<E> extends AbstractSet<E> {
+
+        private Loader loader;
+
+        private volatile Set<E> set;
+
+        LazySet(Loader loader) {
+            this.loader = loader;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Set<E> set() {
+            Set<E> set = this.set;
+            if (set == null) {
+                synchronized (this) {
+                    set = this.set;
+                    if (set == null) {
+                        set = (Set<E>) loader.load();
+                        this.set = set;
+                        loader = null;
+                    }
+                }
+            }
+            return set;
+        }
+
+        @Override
+        public int size() {
+            return set().size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return set().contains(o);
+        }
+
+        @Override
+        public boolean add(E e) {
+            return set().add(e);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return set().remove(o);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return set().iterator();
+        }
+    }
+}
@@ -18,11 +18,15 @@
  */
 package org.elasticsearch.osem.core.impl;
 
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.osem.annotations.AttributeSource;
 import org.elasticsearch.osem.annotations.impl.AttributeSourceImpl;
 import org.elasticsearch.osem.core.AbstractObjectContext;
 import org.elasticsearch.osem.core.ObjectContext;
+import org.elasticsearch.osem.property.PropertyAccessorSource;
 import org.elasticsearch.osem.property.PropertySignatureSource;
+import org.elasticsearch.osem.property.impl.PropertyAccessorSourceImpl;
 import org.elasticsearch.osem.property.impl.PropertySignatureSourceImpl;
 
 /**
@@ -38,10 +42,27 @@ public class ObjectContextImpl extends AbstractObjectContext implements ObjectCo
 
     private PropertySignatureSource signatures = new PropertySignatureSourceImpl();
 
+    private PropertyAccessorSource accessors = new PropertyAccessorSourceImpl();
+
+    private TypeRegistry registry;
+
+    private Settings settings;
+
     public ObjectContextImpl() {
-        mapper = new ObjectContextMapperImpl(attributes, signatures);
-        writer = new ObjectContextWriterImpl(attributes, signatures);
-        reader = new ObjectContextReaderImpl(attributes, signatures);
+        this(ImmutableSettings.Builder.EMPTY_SETTINGS);
+    }
+
+    public ObjectContextImpl(Settings settings) {
+        this.settings = settings;
+        registry = new TypeRegistry(settings.getClassLoader());
+        mapper = new ObjectContextMapperImpl(attributes, signatures, accessors, registry);
+        writer = new ObjectContextWriterImpl(attributes, signatures, accessors, settings, registry);
+        reader = new ObjectContextReaderImpl(attributes, signatures, accessors, settings, registry);
+    }
+
+    @Override
+    public Settings getSettings() {
+        return settings;
     }
 
 }
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,6 +35,7 @@ import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.index.mapper.xcontent.ContentPath;
+import org.elasticsearch.index.mapper.xcontent.ObjectMapper;
 import org.elasticsearch.index.mapper.xcontent.RootObjectMapper;
 import org.elasticsearch.index.mapper.xcontent.StringFieldMapper;
 import org.elasticsearch.index.mapper.xcontent.XContentMapper;
@@ -45,8 +47,10 @@ import org.elasticsearch.osem.annotations.SerializableAttribute;
 import org.elasticsearch.osem.core.ObjectContextException;
 import org.elasticsearch.osem.core.ObjectContextMapper;
 import org.elasticsearch.osem.core.ObjectContextMappingException;
+import org.elasticsearch.osem.property.PropertyAccessorSource;
 import org.elasticsearch.osem.property.PropertySignature;
 import org.elasticsearch.osem.property.PropertySignatureSource;
+import org.elasticsearch.osem.property.PropertyType;
 
 /**
  * 
@@ -62,18 +66,48 @@ public class ObjectContextMapperImpl implements ObjectContextMapper {
 
     private PropertySignatureSource signatures;
 
+    private PropertyAccessorSource accessors;
+
+    private TypeRegistry registry;
+
     private Set<Class<?>> types = new CopyOnWriteArraySet<Class<?>>();
 
-    public ObjectContextMapperImpl(AttributeSource attributes, PropertySignatureSource signatures) {
+    public ObjectContextMapperImpl(AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors) {
+        this(attributes, signatures, accessors, new TypeRegistry());
+    }
+
+    ObjectContextMapperImpl(AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors,
+            TypeRegistry registry) {
         this.attributes = attributes;
         this.signatures = signatures;
+        this.accessors = accessors;
+        this.registry = registry;
     }
 
     @Override
     public ObjectContextMapper add(Class<?> clazz) {
-        if (!types.contains(clazz)) {
-            for (PropertyDescriptor property : attributes.getSerializableProperties(clazz).keySet()) {
-                PropertySignature composite = signatures.get(property).getComposite();
+        add(clazz, new HashSet<Class<?>>());
+        return this;
+    }
+
+    /**
+     * Add the class after the classes of its nested objects and elements, skipping the classes being added
+     * since nested objects can refer back to them.
+     */
+    private void add(Class<?> clazz, Set<Class<?>> adding) {
+        if (!types.contains(clazz) && adding.add(clazz)) {
+            for (Map.Entry<PropertyDescriptor, SerializableAttribute> entry : attributes.getSerializableProperties(clazz).entrySet()) {
+                if (entry.getValue() != null && entry.getValue().isRaw()) {
+                    continue;
+                }
+                PropertySignature composite;
+                try {
+                    PropertySignature signature = signatures.get(entry.getKey());
+                    // Nested objects are resolved from their '_class' like elements, their class must be registered
+                    composite = signature.getType() == PropertyType.Object ? signature : signature.getComposite();
+                } catch (IllegalArgumentException e) {
+                    throw new ObjectContextMappingException(clazz, e);
+                }
                 if (composite != null) {
                     while (composite.getTypeClass() == null) {
                         if (composite.getComposite() == null) {
@@ -82,16 +116,20 @@ public class ObjectContextMapperImpl implements ObjectContextMapper {
                         composite = composite.getComposite();
                     }
                     if (composite.getTypeClass() != null && !composite.getType().isPrimitive()) {
-                        add(composite.getTypeClass());
+                        add(composite.getTypeClass(), adding);
                     }
                 }
             }
             if (logger.isDebugEnabled()) {
                 logger.debug("Added type [{}]", clazz);
             }
+            try {
+                registry.add(clazz, getType(clazz));
+            } catch (NoSuchMethodException e) {
+                throw new ObjectContextMappingException(clazz, e);
+            }
             types.add(clazz);
         }
-        return this;
     }
 
     @Override
@@ -100,7 +138,7 @@ public class ObjectContextMapperImpl implements ObjectContextMapper {
         if (property != null) {
             Exception exception = null;
             try {
-                return (String) property.getReadMethod().invoke(object);
+                return (String) accessors.get(property).get(object);
             } catch (IllegalArgumentException e) {
                 exception = e;
             } catch (IllegalAccessException e) {
@@ -119,7 +157,7 @@ public class ObjectContextMapperImpl implements ObjectContextMapper {
         if (property != null) {
             Exception exception = null;
             try {
-                property.getWriteMethod().invoke(object, id);
+                accessors.get(property).set(object, id);
                 return;
             } catch (IllegalArgumentException e) {
                 exception = e;
@@ -200,8 +238,12 @@ public class ObjectContextMapperImpl implements ObjectContextMapper {
     }
 
     private XContentMapper.Builder<?, ?> build(PropertyDescriptor property, SerializableAttribute serializable, IndexableAttribute indexable) {
-        PropertySignature signature = signatures.get(property);
         String name = indexable.getIndexName() == null ? property.getName() : indexable.getIndexName();
+        if (serializable != null && serializable.isRaw()) {
+            // Content is opaque, kept in the source without being mapped, differently shaped contents can't conflict
+            return new ObjectMapper.Builder<ObjectMapper.Builder<?, ?>, ObjectMapper>(name).enabled(false);
+        }
+        PropertySignature signature = signatures.get(property);
         switch (signature.getType()) {
             case Array:
             case Collection:
@@ -211,6 +253,9 @@ public class ObjectContextMapperImpl implements ObjectContextMapper {
                 } else {
                     return build(signature.getComposite().getTypeClass(), name);
                 }
+            case Map:
+                // Keys aren't known, entries are mapped dynamically
+                return new ObjectMapper.Builder<ObjectMapper.Builder<?, ?>, ObjectMapper>(name);
             case Object:
                 return build(signature.getTypeClass(), name);
             default:
@@ -18,36 +18,103 @@
  */
 package org.elasticsearch.osem.core.impl;
 
-import java.beans.PropertyDescriptor;
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentParser.Token;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.osem.annotations.AttributeSource;
 import org.elasticsearch.osem.annotations.SerializableAttribute;
 import org.elasticsearch.osem.core.ObjectContextDeserializationException;
 import org.elasticsearch.osem.core.ObjectContextReader;
+import org.elasticsearch.osem.property.PropertyAccessorSource;
 import org.elasticsearch.osem.property.PropertySignature;
 import org.elasticsearch.osem.property.PropertySignatureSource;
 import org.elasticsearch.osem.property.PropertyType;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.search.SearchHits;
 
 /**
- * 
+ * Reads objects by pulling tokens from the source, without building an intermediate map.
+ *
  * @author alois.cochard
  *
  */
 public class ObjectContextReaderImpl implements ObjectContextReader {
 
+    public static final String THREADS_SETTING = "osem.reader.threads";
+
+    public static final String BATCH_SIZE_SETTING = "osem.reader.batch_size";
+
+    public static final String PARALLEL_THRESHOLD_SETTING = "osem.reader.parallel_threshold";
+
+    public static final String LAZY_SETTING = "osem.reader.lazy";
+
     private AttributeSource attributes;
 
     private PropertySignatureSource signatures;
 
-    public ObjectContextReaderImpl(AttributeSource attributes, PropertySignatureSource signatures) {
+    private PropertyAccessorSource accessors;
+
+    private TypeRegistry registry;
+
+    private boolean compact;
+
+    private ConcurrentMap<Class<?>, ReadPlan> plans = new ConcurrentHashMap<Class<?>, ReadPlan>();
+
+    private ExecutorService executor;
+
+    private int batchSize;
+
+    private int parallelThreshold;
+
+    private boolean lazy;
+
+    public ObjectContextReaderImpl(AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors) {
+        this(attributes, signatures, accessors, ImmutableSettings.Builder.EMPTY_SETTINGS);
+    }
+
+    public ObjectContextReaderImpl(AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors,
+            Settings settings) {
+        this(attributes, signatures, accessors, settings, new TypeRegistry(settings.getClassLoader()));
+    }
+
+    ObjectContextReaderImpl(AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors,
+            Settings settings, TypeRegistry registry) {
         this.attributes = attributes;
         this.signatures = signatures;
+        this.accessors = accessors;
+        this.registry = registry;
+        this.compact = settings.get(ObjectContextWriterImpl.PROFILE_SETTING, "default").equals("compact");
+        int threads = settings.getAsInt(THREADS_SETTING, 0);
+        if (threads > 0) {
+            executor = Executors.newFixedThreadPool(threads, EsExecutors.daemonThreadFactory(settings, "osem_reader"));
+        }
+        batchSize = settings.getAsInt(BATCH_SIZE_SETTING, 128);
+        parallelThreshold = settings.getAsInt(PARALLEL_THRESHOLD_SETTING, 256);
+        lazy = settings.getAsBoolean(LAZY_SETTING, false);
     }
 
     @SuppressWarnings("unchecked")
@@ -55,9 +122,8 @@ public class ObjectContextReaderImpl implements ObjectContextReader {
     public <T> T read(SearchHit hit) throws ObjectContextDeserializationException {
         Exception exception = null;
         try {
-            Map<String, Object> values = hit.sourceAsMap();
-            values.put("_id", hit.getId());
-            T object = (T) parseObject(values, null);
+            byte[] source = hit.source();
+            T object = (T) read(source, 0, source.length, hit.getId(), registry.resolve(hit.getType()), null);
             return object;
         } catch (InstantiationException e) {
             exception = e;
@@ -69,6 +135,8 @@ public class ObjectContextReaderImpl implements ObjectContextReader {
             exception = e;
         } catch (ClassNotFoundException e) {
             exception = e;
+        } catch (IOException e) {
+            exception = e;
         }
         throw new ObjectContextDeserializationException(exception);
     }
@@ -78,9 +146,32 @@ public class ObjectContextReaderImpl implements ObjectContextReader {
     public <T> T read(GetResponse response) throws ObjectContextDeserializationException {
         Exception exception = null;
         try {
-            Map<String, Object> values = response.getSource();
-            values.put("_id", response.getId());
-            T object = (T) parseObject(values, null);
+            byte[] source = response.source();
+            T object = (T) read(source, 0, source.length, response.getId(), registry.resolve(response.getType()), null);
+            return object;
+        } catch (InstantiationException e) {
+            exception = e;
+        } catch (IllegalAccessException e) {
+            exception = e;
+        } catch (IllegalArgumentException e) {
+            exception = e;
+        } catch (InvocationTargetException e) {
+            exception = e;
+        } catch (ClassNotFoundException e) {
+            exception = e;
+        } catch (IOException e) {
+            exception = e;
+        }
+        throw new ObjectContextDeserializationException(exception);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T readInto(SearchHit hit, T target) throws ObjectContextDeserializationException {
+        Exception exception = null;
+        try {
+            byte[] source = hit.source();
+            T object = (T) read(source, 0, source.length, hit.getId(), target.getClass(), null, target);
             return object;
         } catch (InstantiationException e) {
             exception = e;
@@ -92,63 +183,479 @@ public class ObjectContextReaderImpl implements ObjectContextReader {
             exception = e;
         } catch (ClassNotFoundException e) {
             exception = e;
+        } catch (IOException e) {
+            exception = e;
+        }
+        throw new ObjectContextDeserializationException(exception);
+    }
+
+    @Override
+    public <T> List<T> readAll(SearchHits hits, List<T> targets) throws ObjectContextDeserializationException {
+        SearchHit[] input = hits.getHits();
+        List<T> output = new ArrayList<T>(input.length);
+        for (int i = 0; i < input.length; i++) {
+            T target = i < targets.size() ? targets.get(i) : null;
+            output.add(target != null ? readInto(input[i], target) : this.<T> read(input[i]));
+        }
+        return output;
+    }
+
+    @Override
+    public <T> T read(Class<T> clazz, String id, byte[] source, int offset, int length) throws ObjectContextDeserializationException {
+        Exception exception = null;
+        try {
+            return clazz.cast(read(source, offset, length, id, clazz, null));
+        } catch (InstantiationException e) {
+            exception = e;
+        } catch (IllegalAccessException e) {
+            exception = e;
+        } catch (IllegalArgumentException e) {
+            exception = e;
+        } catch (InvocationTargetException e) {
+            exception = e;
+        } catch (ClassNotFoundException e) {
+            exception = e;
+        } catch (IOException e) {
+            exception = e;
+        }
+        throw new ObjectContextDeserializationException(exception);
+    }
+
+    @Override
+    public <T> T read(SearchHit hit, Class<T> clazz, String... properties) throws ObjectContextDeserializationException {
+        Exception exception = null;
+        try {
+            List<String> projection = Arrays.asList(properties);
+            if (hit.isSourceEmpty()) {
+                // Without source, properties are read from the fields of the hit
+                return clazz.cast(readFields(hit, clazz, projection));
+            }
+            byte[] source = hit.source();
+            return clazz.cast(read(source, 0, source.length, hit.getId(), clazz, projection));
+        } catch (InstantiationException e) {
+            exception = e;
+        } catch (IllegalAccessException e) {
+            exception = e;
+        } catch (IllegalArgumentException e) {
+            exception = e;
+        } catch (InvocationTargetException e) {
+            exception = e;
+        } catch (ClassNotFoundException e) {
+            exception = e;
+        } catch (IOException e) {
+            exception = e;
         }
         throw new ObjectContextDeserializationException(exception);
     }
 
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public <T> List<T> readAll(SearchHits hits) throws ObjectContextDeserializationException {
+        return readAll(hits, executor);
+    }
+
     @SuppressWarnings("unchecked")
-    private Object parseObject(Map<String, Object> source, Class<?> clazz) throws InstantiationException, IllegalAccessException,
-            ClassNotFoundException, IllegalArgumentException, InvocationTargetException {
-        // Instantiate object
-        Object object = null;
-        String className = (String) source.get(ObjectContextImpl.CLASS_FIELD_NAME);
+    @Override
+    public <T> List<T> readAll(SearchHits hits, Executor executor) throws ObjectContextDeserializationException {
+        final SearchHit[] input = hits.getHits();
+        final Object[] output = new Object[input.length];
+        if (executor == null || input.length <= parallelThreshold) {
+            readAll(input, output, 0, input.length);
+        } else {
+            // Each batch fills its own range of the output, keeping the hits order
+            Batches.run(executor, input.length, batchSize, new Batches.Batch() {
+                @Override
+                public void run(int from, int to) {
+                    readAll(input, output, from, to);
+                }
+            }, "reading");
+        }
+        return (List<T>) Arrays.asList(output);
+    }
+
+    private void readAll(SearchHit[] input, Object[] output, int from, int to) {
+        for (int i = from; i < to; i++) {
+            output[i] = read(input[i]);
+        }
+    }
+
+    private Object read(byte[] source, int offset, int length, String id, Class<?> clazz, List<String> projection)
+            throws InstantiationException, IllegalAccessException, ClassNotFoundException, IllegalArgumentException,
+            InvocationTargetException, IOException {
+        return read(source, offset, length, id, clazz, projection, null);
+    }
+
+    private Object read(byte[] source, int offset, int length, String id, Class<?> clazz, List<String> projection, Object target)
+            throws InstantiationException, IllegalAccessException, ClassNotFoundException, IllegalArgumentException,
+            InvocationTargetException, IOException {
+        XContentParser parser = XContentFactory.xContent(source, offset, length).createParser(source, offset, length);
+        try {
+            parser.nextToken();
+            return setId(readObject(parser, clazz, projection, target), id);
+        } finally {
+            parser.close();
+        }
+    }
+
+    private Object readFields(SearchHit hit, Class<?> clazz, List<String> projection) throws InstantiationException,
+            IllegalAccessException, ClassNotFoundException, IllegalArgumentException, InvocationTargetException, IOException {
+        ReadPlan plan = getPlan(clazz).projectFields(projection);
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (String name : projection) {
+            SearchHitField field = hit.field(name);
+            if (field != null) {
+                values.put(name, plan.get(name).composite != null ? field.values() : field.value());
+            }
+        }
+        return setId(parseObject(values, clazz, projection), hit.getId());
+    }
+
+    private Object setId(Object object, String id) throws IllegalAccessException, InvocationTargetException {
+        ReadPlan.Slot slot = getPlan(object.getClass()).id;
+        if (slot != null) {
+            slot.accessor.set(object, id);
+        }
+        return object;
+    }
+
+    /**
+     * Read the current object, only reading the projected properties if given, into the target if of the same class.
+     */
+    private Object readObject(XContentParser parser, Class<?> clazz, List<String> projection, Object target)
+            throws InstantiationException, IllegalAccessException, ClassNotFoundException, IllegalArgumentException,
+            InvocationTargetException, IOException {
+        Token token = parser.nextToken();
+        if (token == Token.FIELD_NAME && parser.currentName().equals(ObjectContextImpl.CLASS_FIELD_NAME)) {
+            parser.nextToken();
+            clazz = resolve(parser.textOrNull(), clazz);
+            token = parser.nextToken();
+        } else if (!compact || clazz == null) {
+            // Older documents have '_class' after the properties, the class isn't known before reaching the end
+            return parseObject(readMap(parser), clazz, projection);
+        }
+        ReadPlan plan = getPlan(clazz, projection);
+        boolean reuse = target != null && target.getClass() == clazz;
+        Object object = reuse ? target : registry.newInstance(clazz);
+        // Reused objects get the properties missing from the document reset
+        boolean[] set = reuse ? new boolean[plan.size()] : null;
+        int read = 0;
+        for (; token == Token.FIELD_NAME; token = parser.nextToken()) {
+            ReadPlan.Slot slot = plan.get(parser.currentName());
+            token = parser.nextToken();
+            if (slot == null) {
+                parser.skipChildren();
+                continue;
+            }
+            if (lazy && slot.lazy && token == Token.START_ARRAY) {
+                slot.accessor.set(object, readLazy(parser, slot));
+            } else {
+                slot.accessor.set(object, readProperty(parser, token, slot, reuse ? slot.accessor.get(object) : null));
+            }
+            if (reuse) {
+                set[slot.index] = true;
+            }
+            if (projection != null && ++read == plan.size()) {
+                // Remaining fields aren't projected, the caller closes the parser
+                break;
+            }
+        }
+        if (reuse) {
+            for (ReadPlan.Slot slot : plan.slots()) {
+                if (!set[slot.index]) {
+                    slot.accessor.set(object, slot.defaultValue);
+                }
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Keep the content of the collection, reading its elements on first access.
+     */
+    private Collection<Object> readLazy(XContentParser parser, final ReadPlan.Slot slot) throws IOException {
+        final XContentType type = parser.contentType();
+        XContentBuilder builder = XContentFactory.unCachedContentBuilder(type);
+        builder.copyCurrentStructure(parser);
+        final byte[] content = builder.copiedBytes();
+        LazyCollections.Loader loader = new LazyCollections.Loader() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public Collection<Object> load() {
+                Exception exception = null;
+                XContentParser parser = null;
+                try {
+                    parser = XContentFactory.xContent(type).createParser(content);
+                    return (Collection<Object>) readProperty(parser, parser.nextToken(), slot, null);
+                } catch (InstantiationException e) {
+                    exception = e;
+                } catch (IllegalAccessException e) {
+                    exception = e;
+                } catch (IllegalArgumentException e) {
+                    exception = e;
+                } catch (InvocationTargetException e) {
+                    exception = e;
+                } catch (ClassNotFoundException e) {
+                    exception = e;
+                } catch (IOException e) {
+                    exception = e;
+                } finally {
+                    if (parser != null) {
+                        parser.close();
+                    }
+                }
+                throw new ObjectContextDeserializationException(exception);
+            }
+        };
+        return slot.set ? new LazyCollections.LazySet<Object>(loader) : new LazyCollections.LazyList<Object>(loader);
+    }
+
+    /**
+     * Read the current value of the property, refilling the current collection, map or object if any.
+     */
+    @SuppressWarnings("unchecked")
+    private Object readProperty(XContentParser parser, Token token, ReadPlan.Slot slot, Object current) throws InstantiationException,
+            IllegalAccessException, ClassNotFoundException, IllegalArgumentException, InvocationTargetException, IOException {
+        if (token == Token.VALUE_NULL) {
+            // Primitives can't be set to null
+            return slot.defaultValue;
+        }
+        if (slot.raw) {
+            // Not the builder cached for the thread, which the next write on this thread would reuse
+            XContentBuilder builder = JsonXContent.unCachedContentBuilder();
+            builder.copyCurrentStructure(parser);
+            return slot.propertyType == byte[].class ? builder.copiedBytes() : builder.string();
+        }
+        PropertySignature signature = slot.signature;
+        PropertySignature composite = slot.composite;
+        SerializableAttribute serializable = slot.serializable;
+        switch (signature.getType()) {
+            case Array:
+                if (composite.getTypeClass().isPrimitive()) {
+                    return PrimitiveArrays.read(composite.getType(), parser);
+                }
+                List<Object> elements = new ArrayList<Object>();
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    elements.add(readElement(parser, token, composite, serializable));
+                }
+                return elements.toArray((Object[]) Array.newInstance(composite.getTypeClass(), elements.size()));
+            case Collection:
+                Collection<Object> collection;
+                if (!slot.iterator && signature.getTypeClass().isInstance(current)) {
+                    collection = (Collection<Object>) current;
+                    collection.clear();
+                } else {
+                    collection = (Collection<Object>) registry.newInstance(signature.getTypeClass());
+                }
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    collection.add(readElement(parser, token, composite, serializable));
+                }
+                return slot.iterator ? collection.iterator() : collection;
+            case Map:
+                Map<String, Object> map;
+                if (signature.getTypeClass().isInstance(current)) {
+                    map = (Map<String, Object>) current;
+                    map.clear();
+                } else {
+                    map = (Map<String, Object>) registry.newInstance(signature.getTypeClass());
+                }
+                while (parser.nextToken() == Token.FIELD_NAME) {
+                    String name = parser.currentName();
+                    map.put(name, readElement(parser, parser.nextToken(), composite, serializable));
+                }
+                return map;
+            case Object:
+                return readObject(parser, signature.getTypeClass(), null, current);
+            default:
+                return slot.adapter.read(serializable, readValue(parser, token));
+        }
+    }
+
+    private Object readElement(XContentParser parser, Token token, PropertySignature signature, SerializableAttribute serializable)
+            throws InstantiationException, IllegalAccessException, ClassNotFoundException, IllegalArgumentException,
+            InvocationTargetException, IOException {
+        if (token == Token.VALUE_NULL) {
+            return null;
+        }
+        if (signature.getType().getAdapter() != null) {
+            return signature.getType().getAdapter().read(serializable, readValue(parser, token));
+        }
+        return readObject(parser, signature.getTypeClass(), null, null);
+    }
+
+    /**
+     * Read the current value as it would appear in a source map.
+     */
+    private Object readValue(XContentParser parser, Token token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                parser.nextToken();
+                return readMap(parser);
+            case START_ARRAY:
+                List<Object> list = new ArrayList<Object>();
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    list.add(readValue(parser, token));
+                }
+                return list;
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Read the remaining fields of the current object, keeping their order for raw values to be rendered back as written.
+     */
+    private Map<String, Object> readMap(XContentParser parser) throws IOException {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        for (Token token = parser.currentToken(); token == Token.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.currentName();
+            map.put(name, readValue(parser, parser.nextToken()));
+        }
+        return map;
+    }
+
+    private ReadPlan getPlan(Class<?> clazz, List<String> projection) {
+        ReadPlan plan = getPlan(clazz);
+        return projection != null ? plan.project(projection) : plan;
+    }
+
+    private ReadPlan getPlan(Class<?> clazz) {
+        ReadPlan plan = plans.get(clazz);
+        if (plan == null) {
+            plan = ReadPlan.create(clazz, attributes, signatures, accessors);
+            ReadPlan p = plans.putIfAbsent(clazz, plan);
+            plan = p != null ? p : plan;
+        }
+        return plan;
+    }
+
+    private Class<?> resolve(String className, Class<?> clazz) throws ClassNotFoundException {
         if (className != null && !className.isEmpty()) {
-            clazz = Class.forName(className);
+            return registry.forName(className, clazz);
+        } else if (clazz == null) {
+            throw new ClassNotFoundException(String.format("Unable to resolve the class of a document without [%s]",
+                    ObjectContextImpl.CLASS_FIELD_NAME));
         }
-        object = clazz.newInstance();
-        // Populate properties
+        return clazz;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object parseObject(Map<String, Object> source, Class<?> clazz, List<String> projection) throws InstantiationException,
+            IllegalAccessException, ClassNotFoundException, IllegalArgumentException, InvocationTargetException, IOException {
+        clazz = resolve((String) source.get(ObjectContextImpl.CLASS_FIELD_NAME), clazz);
+        ReadPlan plan = getPlan(clazz, projection);
+        Object object = registry.newInstance(clazz);
         for (Map.Entry<String, Object> entry : source.entrySet()) {
-            String name = entry.getKey();
-            Object value = entry.getValue();
-            if (name.equals(ObjectContextImpl.CLASS_FIELD_NAME)) {
+            ReadPlan.Slot slot = plan.get(entry.getKey());
+            if (slot == null) {
                 continue;
             }
-            PropertyDescriptor property = attributes.getProperty(clazz, name);
-            // TODO [alois.cochard] Handling of serialization attribute, perhaps better to rewrite reader/writer in a more OOP way.
-            SerializableAttribute serializable = attributes.getSerializableProperties(clazz).get(property);
-            if (property != null) {
-                PropertySignature signature = signatures.get(property);
-                if (value != null) {
-                    if (signature.getComposite() == null) {
-                        value = signature.getType().getAdapter().read(serializable, (String) value);
-                    } else {
-                        switch (signature.getType()) {
-                            case Array:
-                            case Collection:
-                                Collection<Object> input = (Collection<Object>) value;
-                                Collection<Object> output = (Collection<Object>) signature.getTypeClass().newInstance();
-                                for (Object o : input) {
-                                    if (signature.getComposite().getType().getAdapter() != null) {
-                                        output.add(signature.getComposite().getType().getAdapter().read(serializable, (String) o));
-                                    } else {
-                                        output.add(parseObject((Map<String, Object>) o, signature.getComposite().getTypeClass()));
-                                    }
-                                }
-                                value = output;
-                                if (signature.getType().equals(PropertyType.Array)) {
-                                    value = output.toArray((Object[]) Array.newInstance(signature.getComposite().getTypeClass(), output.size()));
+            Object value = entry.getValue();
+            if (value == null) {
+                value = slot.defaultValue;
+            } else {
+                PropertySignature signature = slot.signature;
+                SerializableAttribute serializable = slot.serializable;
+                if (slot.raw) {
+                    value = readRaw(value, slot.propertyType);
+                } else if (signature.getType() == PropertyType.Object) {
+                    value = parseObject((Map<String, Object>) value, signature.getTypeClass(), null);
+                } else if (slot.composite == null) {
+                    value = slot.adapter.read(serializable, value);
+                } else {
+                    switch (signature.getType()) {
+                        case Array:
+                            List<Object> values = (List<Object>) value;
+                            PropertySignature component = slot.composite;
+                            if (component.getTypeClass().isPrimitive()) {
+                                value = PrimitiveArrays.read(component.getType(), values);
+                            } else {
+                                Object[] array = (Object[]) Array.newInstance(component.getTypeClass(), values.size());
+                                int i = 0;
+                                for (Object o : values) {
+                                    array[i++] = parseElement(component, serializable, o);
                                 }
-                                break;
-                            case Object:
-                                value = parseObject((Map<String, Object>) value, signature.getComposite().getTypeClass());
-                                break;
-                        }
+                                value = array;
+                            }
+                            break;
+                        case Collection:
+                            Collection<Object> input = (Collection<Object>) value;
+                            Collection<Object> output = (Collection<Object>) registry.newInstance(signature.getTypeClass());
+                            for (Object o : input) {
+                                output.add(parseElement(slot.composite, serializable, o));
+                            }
+                            value = slot.iterator ? output.iterator() : output;
+                            break;
+                        case Map:
+                            Map<String, Object> entries = (Map<String, Object>) value;
+                            Map<String, Object> map;
+                            if (signature.getTypeClass() == HashMap.class) {
+                                // Presized for the entries to fit under the default load factor
+                                map = new HashMap<String, Object>((int) (entries.size() / 0.75F) + 1);
+                            } else {
+                                map = (Map<String, Object>) registry.newInstance(signature.getTypeClass());
+                            }
+                            for (Map.Entry<String, Object> e : entries.entrySet()) {
+                                map.put(e.getKey(), parseElement(slot.composite, serializable, e.getValue()));
+                            }
+                            value = map;
+                            break;
                     }
                 }
-                property.getWriteMethod().invoke(object, value);
             }
+            slot.accessor.set(object, value);
         }
-
         return object;
     }
+
+    private Object readRaw(Object value, Class<?> type) throws IOException {
+        // The sub-tree has already been parsed with the source, rendering it back
+        XContentBuilder builder = JsonXContent.unCachedContentBuilder();
+        writeRaw(builder, value);
+        return type == byte[].class ? builder.copiedBytes() : builder.string();
+    }
+
+    private void writeRaw(XContentBuilder builder, Object value) throws IOException {
+        if (value instanceof Map) {
+            builder.startObject();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                builder.field(e.getKey().toString());
+                writeRaw(builder, e.getValue());
+            }
+            builder.endObject();
+        } else if (value instanceof List) {
+            builder.startArray();
+            for (Object element : (List<?>) value) {
+                writeRaw(builder, element);
+            }
+            builder.endArray();
+        } else {
+            builder.value(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object parseElement(PropertySignature signature, SerializableAttribute serializable, Object value) throws InstantiationException,
+            IllegalAccessException, ClassNotFoundException, IllegalArgumentException, InvocationTargetException, IOException {
+        if (value == null) {
+            return null;
+        }
+        if (signature.getType().getAdapter() != null) {
+            return signature.getType().getAdapter().read(serializable, value);
+        }
+        return parseObject((Map<String, Object>) value, signature.getTypeClass(), null);
+    }
 }
@@ -18,21 +18,41 @@
  */
 package org.elasticsearch.osem.core.impl;
 
-import java.beans.PropertyDescriptor;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.elasticsearch.common.Unicode;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.xcontent.XContentBuilder;
-import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.osem.annotations.AttributeSource;
-import org.elasticsearch.osem.annotations.IndexableAttribute;
 import org.elasticsearch.osem.annotations.SerializableAttribute;
 import org.elasticsearch.osem.core.ObjectContextSerializationException;
 import org.elasticsearch.osem.core.ObjectContextWriter;
+import org.elasticsearch.osem.property.PropertyAccessorSource;
 import org.elasticsearch.osem.property.PropertySignature;
 import org.elasticsearch.osem.property.PropertySignatureSource;
+import org.elasticsearch.osem.property.PropertyTypeAdapter;
 
 /**
  * 
@@ -41,22 +61,192 @@ import org.elasticsearch.osem.property.PropertySignatureSource;
  */
 public class ObjectContextWriterImpl implements ObjectContextWriter {
 
+    public static final String CONTENT_TYPE_SETTING = "osem.xcontent.type";
+
+    public static final String PROFILE_SETTING = "osem.writer.profile";
+
+    public static final String POOL_SIZE_SETTING = "osem.writer.pool.size";
+
+    public static final String POOL_BUFFER_SIZE_SETTING = "osem.writer.pool.buffer_size";
+
+    public static final String POOL_MAX_BUFFER_SIZE_SETTING = "osem.writer.pool.max_buffer_size";
+
+    public static final String THREADS_SETTING = "osem.writer.threads";
+
+    public static final String BATCH_SIZE_SETTING = "osem.writer.batch_size";
+
+    public static final String MAX_DEPTH_SETTING = "osem.writer.max_depth";
+
+    public static final String MAX_VALUES_SETTING = "osem.writer.max_values";
+
+    private static final ESLogger logger = Loggers.getLogger(ObjectContextWriterImpl.class);
+
     private AttributeSource attributes;
 
     private PropertySignatureSource signatures;
 
-    public ObjectContextWriterImpl(AttributeSource attributes, PropertySignatureSource signatures) {
+    private PropertyAccessorSource accessors;
+
+    private ConcurrentMap<Class<?>, WritePlan> plans = new ConcurrentHashMap<Class<?>, WritePlan>();
+
+    private TypeRegistry registry;
+
+    private XContentType contentType;
+
+    private boolean compact;
+
+    private BuilderPool pool;
+
+    private ExecutorService executor;
+
+    private int batchSize;
+
+    private int maxDepth;
+
+    private int maxValues;
+
+    /**
+     * State of a single document write, tracking the objects being written to detect cycles.
+     */
+    private static final class WriteState {
+
+        Object root;
+
+        Map<Object, Boolean> path;
+
+        int depth;
+
+        int values;
+    }
+
+    public ObjectContextWriterImpl(AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors) {
+        this(attributes, signatures, accessors, ImmutableSettings.Builder.EMPTY_SETTINGS);
+    }
+
+    public ObjectContextWriterImpl(AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors,
+            Settings settings) {
+        this(attributes, signatures, accessors, settings, new TypeRegistry());
+    }
+
+    ObjectContextWriterImpl(AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors,
+            Settings settings, TypeRegistry registry) {
         this.attributes = attributes;
         this.signatures = signatures;
+        this.accessors = accessors;
+        this.registry = registry;
+        this.compact = settings.get(PROFILE_SETTING, "default").equals("compact");
+        this.contentType = XContentType.valueOf(settings.get(CONTENT_TYPE_SETTING, "json").toUpperCase());
+        int poolSize = settings.getAsInt(POOL_SIZE_SETTING, 0);
+        if (poolSize > 0) {
+            ByteSizeValue bufferSize = settings.getAsBytesSize(POOL_BUFFER_SIZE_SETTING, new ByteSizeValue(1024));
+            ByteSizeValue maxBufferSize = settings.getAsBytesSize(POOL_MAX_BUFFER_SIZE_SETTING, new ByteSizeValue(64 * 1024));
+            pool = new BuilderPool(XContentFactory.xContent(contentType), poolSize, (int) bufferSize.bytes(), (int) maxBufferSize.bytes());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Using a pool of [{}] builders, buffer_size [{}], max_buffer_size [{}]", poolSize, bufferSize, maxBufferSize);
+            }
+        }
+        int threads = settings.getAsInt(THREADS_SETTING, 0);
+        if (threads > 0) {
+            executor = Executors.newFixedThreadPool(threads, EsExecutors.daemonThreadFactory(settings, "osem_writer"));
+        }
+        batchSize = settings.getAsInt(BATCH_SIZE_SETTING, 128);
+        maxDepth = settings.getAsInt(MAX_DEPTH_SETTING, 64);
+        maxValues = settings.getAsInt(MAX_VALUES_SETTING, 0);
     }
 
     @Override
     public XContentBuilder write(Object object) throws ObjectContextSerializationException {
+        if (pool == null) {
+            try {
+                return write(object, XContentFactory.contentBuilder(contentType));
+            } catch (IOException e) {
+                throw new ObjectContextSerializationException(object.getClass(), e);
+            }
+        }
+        return writeOwned(object);
+    }
+
+    @Override
+    public List<XContentBuilder> writeAll(Collection<?> objects) throws ObjectContextSerializationException {
+        return writeAll(objects, executor);
+    }
+
+    @Override
+    public List<XContentBuilder> writeAll(Collection<?> objects, Executor executor) throws ObjectContextSerializationException {
+        final Object[] input = objects.toArray();
+        final XContentBuilder[] output = new XContentBuilder[input.length];
+        if (executor == null || input.length <= batchSize) {
+            writeAll(input, output, 0, input.length);
+            return Arrays.asList(output);
+        }
+        // Each batch fills its own range of the output, keeping the input order
+        Batches.run(executor, input.length, batchSize, new Batches.Batch() {
+            @Override
+            public void run(int from, int to) {
+                writeAll(input, output, from, to);
+            }
+        }, "writing");
+        return Arrays.asList(output);
+    }
+
+    private void writeAll(Object[] input, XContentBuilder[] output, int from, int to) {
+        for (int i = from; i < to; i++) {
+            output[i] = writeOwned(input[i]);
+        }
+    }
+
+    /**
+     * Write the object to a builder which isn't shared with the current thread, taken from the pool if enabled.
+     */
+    private XContentBuilder writeOwned(Object object) {
+        XContentBuilder builder;
+        try {
+            builder = pool != null ? pool.acquire() : XContentFactory.unCachedContentBuilder(contentType);
+        } catch (IOException e) {
+            throw new ObjectContextSerializationException(object.getClass(), e);
+        }
+        try {
+            return write(object, builder);
+        } catch (ObjectContextSerializationException e) {
+            release(builder);
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(XContentBuilder builder) {
+        if (pool != null) {
+            pool.release(builder);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void write(Object object, OutputStream stream) throws ObjectContextSerializationException {
+        try {
+            XContentBuilder builder = XContentFactory.contentBuilder(contentType, stream);
+            write(object, builder);
+            // Flushing without closing, the stream is owned by the caller
+            builder.flush();
+        } catch (IOException e) {
+            throw new ObjectContextSerializationException(object.getClass(), e);
+        }
+    }
+
+    @Override
+    public XContentBuilder write(Object object, XContentBuilder builder) throws ObjectContextSerializationException {
         Exception exception = null;
         try {
-            XContentBuilder builder = JsonXContent.contentBuilder();
+            // The root class is resolved from the document type when registered
+            Class<?> declared = registry.getCode(object.getClass()) != null ? object.getClass() : null;
             builder.startObject();
-            write(builder, object);
+            writeObject(builder, object, declared, new WriteState());
             builder.endObject();
             return builder;
         } catch (IllegalArgumentException e) {
@@ -71,53 +261,153 @@ public class ObjectContextWriterImpl implements ObjectContextWriter {
         throw new ObjectContextSerializationException(object.getClass(), exception);
     }
 
-    private void write(XContentBuilder builder, Object object) throws IllegalArgumentException, IllegalAccessException, InvocationTargetException,
-            IOException {
-        for (Map.Entry<PropertyDescriptor, SerializableAttribute> entry : attributes.getSerializableProperties(object.getClass()).entrySet()) {
-            PropertyDescriptor property = entry.getKey();
-            // TODO [alois.cochard] Handle serialization attribute
-            SerializableAttribute serializable = entry.getValue();
-            IndexableAttribute indexable = attributes.getIndexableProperties(object.getClass()).get(property);
-            String name = indexable != null && indexable.getIndexName() != null ? indexable.getIndexName() : property.getName();
-            write(builder, name, signatures.get(property), property.getReadMethod().invoke(object));
+    private void writeObject(XContentBuilder builder, Object object, Class<?> declared, WriteState state)
+            throws IllegalArgumentException, IllegalAccessException, InvocationTargetException, IOException {
+        enter(object, state);
+        WritePlan plan = getPlan(object.getClass());
+        boolean first = true;
+        // Add _class field first, allowing readers to instantiate the object before reading its properties
+        if (!compact) {
+            builder.field(WritePlan.CLASS_FIELD).value(plan.className);
+            first = false;
+        } else if (plan.type != declared) {
+            builder.field(WritePlan.CLASS_FIELD).value(plan.code);
+            first = false;
         }
-        // Add _class field
-        builder.field(ObjectContextImpl.CLASS_FIELD_NAME, object.getClass().getCanonicalName());
+        for (WritePlan.Slot slot : plan.slots) {
+            Object value = slot.accessor.get(object);
+            if (value == null && (slot.id || compact)) {
+                // Filtering "_id" field with null value, for automatic id generation
+                continue;
+            }
+            if (slot.raw && value != null) {
+                writeRaw(builder, slot.name, value, first);
+                first = false;
+                continue;
+            }
+            first = false;
+            if (slot.encodedName != null) {
+                builder.field(slot.encodedName);
+            } else {
+                builder.field(slot.name);
+            }
+            write(builder, slot.signature, slot.serializable, slot.adapter, value, state);
+        }
+        exit(object, state);
     }
 
-    @SuppressWarnings("unchecked")
-    private void write(XContentBuilder builder, String name, PropertySignature signature, Object value) throws IllegalArgumentException, IOException,
-            IllegalAccessException, InvocationTargetException {
-        if (name != null) {
-            if (name.equals("_id") && value == null) {
-                // Filtering "_id" field with null value, for automatic id generation
-                return;
+    private void writeRaw(XContentBuilder builder, String name, Object value, boolean first) throws IOException {
+        byte[] content = value instanceof byte[] ? (byte[]) value : Unicode.fromStringAsBytes(value.toString());
+        if (!first && builder.contentType() == XContentType.JSON) {
+            // Copying the bytes verbatim, the raw field being always separated from the previous one
+            builder.rawField(name, content);
+        } else {
+            // Only objects are detected, arrays and scalars being JSON
+            XContentType type = XContentFactory.xContentType(content);
+            XContentParser parser = XContentFactory.xContent(type != null ? type : XContentType.JSON).createParser(content);
+            try {
+                parser.nextToken();
+                builder.field(name);
+                builder.copyCurrentStructure(parser);
+            } finally {
+                parser.close();
             }
-            builder.field(name);
         }
+    }
+
+    private void enter(Object object, WriteState state) {
+        if (++state.depth > maxDepth) {
+            throw new IllegalArgumentException(String.format("Maximum depth [%d] exceeded", maxDepth));
+        }
+        if (state.depth == 1) {
+            state.root = object;
+            return;
+        }
+        // Only documents with nested objects pay for the identity map
+        if (state.path == null) {
+            state.path = new IdentityHashMap<Object, Boolean>();
+        }
+        if (object == state.root || state.path.put(object, Boolean.TRUE) != null) {
+            throw new IllegalArgumentException(String.format("Cycle detected on object of type [%s]", object.getClass()));
+        }
+    }
+
+    private void exit(Object object, WriteState state) {
+        if (state.depth-- > 1) {
+            state.path.remove(object);
+        }
+    }
+
+    private void count(int values, WriteState state) {
+        state.values += values;
+        if (maxValues > 0 && state.values > maxValues) {
+            throw new IllegalArgumentException(String.format("Maximum number of values [%d] exceeded", maxValues));
+        }
+    }
+
+    private void write(XContentBuilder builder, PropertySignature signature, SerializableAttribute serializable,
+            PropertyTypeAdapter<Object> adapter, Object value, WriteState state) throws IllegalArgumentException, IOException,
+            IllegalAccessException, InvocationTargetException {
+        count(1, state);
         if (value == null) {
             builder.nullValue();
         } else {
             switch (signature.getType()) {
                 case Array:
                 case Collection:
-                    Object[] a = value.getClass().isArray() ? (Object[]) value : ((Collection) value).toArray();
+                    PropertySignature composite = signature.getComposite();
+                    if (composite.getTypeClass().isPrimitive()) {
+                        count(Array.getLength(value), state);
+                        PrimitiveArrays.write(builder, composite.getType(), value);
+                        break;
+                    }
+                    PropertyTypeAdapter<Object> compositeAdapter = composite.getType().getAdapter();
                     builder.startArray();
-                    for (Object o : a) {
-                        write(builder, null, signature.getComposite(), o);
+                    if (value instanceof Object[]) {
+                        for (Object o : (Object[]) value) {
+                            write(builder, composite, serializable, compositeAdapter, o, state);
+                        }
+                    } else {
+                        // Streaming elements, iterators being consumed
+                        Iterator<?> iterator = value instanceof Iterator ? (Iterator<?>) value : ((Iterable<?>) value).iterator();
+                        while (iterator.hasNext()) {
+                            write(builder, composite, serializable, compositeAdapter, iterator.next(), state);
+                        }
                     }
                     builder.endArray();
                     break;
+                case Map:
+                    PropertySignature values = signature.getComposite();
+                    PropertyTypeAdapter<Object> valuesAdapter = values.getType().getAdapter();
+                    Map<?, ?> map = (Map<?, ?>) value;
+                    // Keys are sorted, equal maps being written the same whatever their iteration order
+                    Object[] keys = map.keySet().toArray();
+                    Arrays.sort(keys);
+                    builder.startObject();
+                    for (Object key : keys) {
+                        builder.field(key.toString());
+                        write(builder, values, serializable, valuesAdapter, map.get(key), state);
+                    }
+                    builder.endObject();
+                    break;
                 case Object:
                     builder.startObject();
-                    write(builder, value);
+                    writeObject(builder, value, signature.getTypeClass(), state);
                     builder.endObject();
                     break;
                 default:
-                    // TODO [alois.cochard] add access to serializable attribute
-                    value = value != null ? signature.getType().getAdapter().write(null, value) : value;
-                    builder.value(value);
+                    adapter.write(builder, serializable, value);
             }
         }
     }
+
+    private WritePlan getPlan(Class<?> clazz) {
+        WritePlan plan = plans.get(clazz);
+        if (plan == null) {
+            plan = WritePlan.create(clazz, registry, attributes, signatures, accessors);
+            WritePlan p = plans.putIfAbsent(clazz, plan);
+            plan = p != null ? p : plan;
+        }
+        return plan;
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.core.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentParser.Token;
+import org.elasticsearch.osem.property.PropertyType;
+
+/**
+ * Reads and writes arrays of primitive types without boxing their elements.
+ *
+ * @author alois.cochard
+ *
+ */
+final class PrimitiveArrays {
+
+    private PrimitiveArrays() {
+    }
+
+    static void write(XContentBuilder builder, PropertyType type, Object array) throws IOException {
+        builder.startArray();
+        switch (type) {
+            case Boolean:
+                for (boolean value : (boolean[]) array) {
+                    builder.value(value);
+                }
+                break;
+            case Double:
+                for (double value : (double[]) array) {
+                    builder.value(value);
+                }
+                break;
+            case Float:
+                for (float value : (float[]) array) {
+                    builder.value(value);
+                }
+                break;
+            case Integer:
+                for (int value : (int[]) array) {
+                    builder.value(value);
+                }
+                break;
+            case Long:
+                for (long value : (long[]) array) {
+                    builder.value(value);
+                }
+                break;
+            case Short:
+                for (short value : (short[]) array) {
+                    builder.value((int) value);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported primitive array of type [%s]", type));
+        }
+        builder.endArray();
+    }
+
+    static Object read(PropertyType type, List<?> values) {
+        int i = 0;
+        switch (type) {
+            case Boolean:
+                boolean[] booleans = new boolean[values.size()];
+                for (Object value : values) {
+                    booleans[i++] = value instanceof Boolean ? (Boolean) value : (Boolean) type.getAdapter().read(null, value);
+                }
+                return booleans;
+            case Double:
+                double[] doubles = new double[values.size()];
+                for (Object value : values) {
+                    doubles[i++] = number(type, value).doubleValue();
+                }
+                return doubles;
+            case Float:
+                float[] floats = new float[values.size()];
+                for (Object value : values) {
+                    floats[i++] = number(type, value).floatValue();
+                }
+                return floats;
+            case Integer:
+                int[] ints = new int[values.size()];
+                for (Object value : values) {
+                    ints[i++] = number(type, value).intValue();
+                }
+                return ints;
+            case Long:
+                long[] longs = new long[values.size()];
+                for (Object value : values) {
+                    longs[i++] = number(type, value).longValue();
+                }
+                return longs;
+            case Short:
+                short[] shorts = new short[values.size()];
+                for (Object value : values) {
+                    shorts[i++] = number(type, value).shortValue();
+                }
+                return shorts;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported primitive array of type [%s]", type));
+        }
+    }
+
+    /**
+     * Read the array the parser is positioned on, filling a growing buffer of the primitive type.
+     */
+    static Object read(PropertyType type, XContentParser parser) throws IOException {
+        int i = 0;
+        Token token;
+        switch (type) {
+            case Boolean:
+                boolean[] booleans = new boolean[8];
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    if (i == booleans.length) {
+                        booleans = Arrays.copyOf(booleans, i << 1);
+                    }
+                    booleans[i++] = token == Token.VALUE_BOOLEAN ? parser.booleanValue() : (Boolean) type.getAdapter().read(null,
+                            parser.text());
+                }
+                return Arrays.copyOf(booleans, i);
+            case Double:
+                double[] doubles = new double[8];
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    if (i == doubles.length) {
+                        doubles = Arrays.copyOf(doubles, i << 1);
+                    }
+                    doubles[i++] = token == Token.VALUE_NUMBER ? parser.doubleValue() : number(type, parser.text()).doubleValue();
+                }
+                return Arrays.copyOf(doubles, i);
+            case Float:
+                float[] floats = new float[8];
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    if (i == floats.length) {
+                        floats = Arrays.copyOf(floats, i << 1);
+                    }
+                    floats[i++] = token == Token.VALUE_NUMBER ? parser.floatValue() : number(type, parser.text()).floatValue();
+                }
+                return Arrays.copyOf(floats, i);
+            case Integer:
+                int[] ints = new int[8];
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    if (i == ints.length) {
+                        ints = Arrays.copyOf(ints, i << 1);
+                    }
+                    ints[i++] = token == Token.VALUE_NUMBER ? parser.intValue() : number(type, parser.text()).intValue();
+                }
+                return Arrays.copyOf(ints, i);
+            case Long:
+                long[] longs = new long[8];
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    if (i == longs.length) {
+                        longs = Arrays.copyOf(longs, i << 1);
+                    }
+                    longs[i++] = token == Token.VALUE_NUMBER ? parser.longValue() : number(type, parser.text()).longValue();
+                }
+                return Arrays.copyOf(longs, i);
+            case Short:
+                short[] shorts = new short[8];
+                while ((token = parser.nextToken()) != Token.END_ARRAY) {
+                    if (i == shorts.length) {
+                        shorts = Arrays.copyOf(shorts, i << 1);
+                    }
+                    shorts[i++] = token == Token.VALUE_NUMBER ? parser.shortValue() : number(type, parser.text()).shortValue();
+                }
+                return Arrays.copyOf(shorts, i);
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported primitive array of type [%s]", type));
+        }
+    }
+
+    private static Number number(PropertyType type, Object value) {
+        // Textual values are converted by the type adapter
+        return value instanceof Number ? (Number) value : (Number) type.getAdapter().read(null, value);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.core.impl;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.elasticsearch.osem.annotations.AttributeSource;
+import org.elasticsearch.osem.annotations.IndexableAttribute;
+import org.elasticsearch.osem.annotations.SerializableAttribute;
+import org.elasticsearch.osem.property.PropertyAccessor;
+import org.elasticsearch.osem.property.PropertyAccessorSource;
+import org.elasticsearch.osem.property.PropertySignature;
+import org.elasticsearch.osem.property.PropertySignatureSource;
+import org.elasticsearch.osem.property.PropertyType;
+import org.elasticsearch.osem.property.PropertyTypeAdapter;
+
+/**
+ * Immutable deserialization plan of a class, dispatching field names straight to their properties.
+ *
+ * @author alois.cochard
+ *
+ */
+final class ReadPlan {
+
+    static final class Slot {
+
+        final int index;
+
+        final Class<?> propertyType;
+
+        /**
+         * Value of a property missing from a document read into an existing object.
+         */
+        final Object defaultValue;
+
+        final PropertyAccessor accessor;
+
+        final PropertySignature signature;
+
+        final PropertySignature composite;
+
+        final SerializableAttribute serializable;
+
+        final PropertyTypeAdapter<Object> adapter;
+
+        final boolean raw;
+
+        final boolean iterator;
+
+        final boolean set;
+
+        /**
+         * Whether the property accepts a lazy list or set, depending on the collection it holds.
+         */
+        final boolean lazy;
+
+        Slot(int index, PropertyDescriptor property, PropertyAccessor accessor, PropertySignature signature,
+                SerializableAttribute serializable) {
+            this.index = index;
+            this.propertyType = property.getPropertyType();
+            this.defaultValue = propertyType.isPrimitive() ? Array.get(Array.newInstance(propertyType, 1), 0) : null;
+            this.accessor = accessor;
+            this.signature = signature;
+            this.composite = signature.getComposite();
+            this.serializable = serializable;
+            this.adapter = signature.getType().getAdapter();
+            this.raw = serializable != null && serializable.isRaw();
+            this.iterator = Iterator.class.isAssignableFrom(propertyType);
+            this.set = signature.getTypeClass() != null && Set.class.isAssignableFrom(signature.getTypeClass());
+            this.lazy = signature.getType() == PropertyType.Collection && !iterator
+                    && propertyType.isAssignableFrom(set ? Set.class : List.class);
+        }
+    }
+
+    private static final int MAX_PROJECTIONS = 64;
+
+    final Class<?> type;
+
+    final Slot id;
+
+    private final Map<String, Slot> slots;
+
+    private final ConcurrentMap<List<String>, ReadPlan> projections = new ConcurrentHashMap<List<String>, ReadPlan>();
+
+    private ReadPlan(Class<?> type, Map<String, Slot> slots, Slot id) {
+        this.type = type;
+        this.slots = slots;
+        this.id = id;
+    }
+
+    Slot get(String name) {
+        return slots.get(name);
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    Collection<Slot> slots() {
+        return slots.values();
+    }
+
+    /**
+     * Plan reading only the given fields, cached since the same projection is usually used for many hits, up to
+     * {@value #MAX_PROJECTIONS} projections per class.
+     */
+    ReadPlan project(List<String> names) {
+        ReadPlan plan = projections.get(names);
+        if (plan == null) {
+            Map<String, Slot> projected = new HashMap<String, Slot>((int) (names.size() / 0.75F) + 1);
+            for (String name : names) {
+                Slot slot = slots.get(name);
+                if (slot == null) {
+                    throw new IllegalArgumentException(String.format("Unknown property [%s] in [%s]", name, type));
+                }
+                projected.put(name, slot);
+            }
+            plan = new ReadPlan(type, projected, id);
+            if (projections.size() < MAX_PROJECTIONS) {
+                // The given list may be backed by the array of the caller
+                ReadPlan p = projections.putIfAbsent(new ArrayList<String>(names), plan);
+                plan = p != null ? p : plan;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Plan reading only the given fields from the fields of a hit, which hold values and arrays but no maps nor objects.
+     */
+    ReadPlan projectFields(List<String> names) {
+        for (String name : names) {
+            Slot slot = slots.get(name);
+            PropertyType propertyType = slot != null ? slot.signature.getType() : null;
+            if (propertyType == PropertyType.Map || propertyType == PropertyType.Object) {
+                throw new IllegalArgumentException(String.format("Property [%s] in [%s] can't be read from the fields of a hit", name, type));
+            }
+        }
+        return project(names);
+    }
+
+    static ReadPlan create(Class<?> clazz, AttributeSource attributes, PropertySignatureSource signatures, PropertyAccessorSource accessors) {
+        Map<PropertyDescriptor, IndexableAttribute> indexables = attributes.getIndexableProperties(clazz);
+        Map<PropertyDescriptor, SerializableAttribute> serializables = attributes.getSerializableProperties(clazz);
+        // Never modified once created, safely published by the plans cache
+        Map<String, Slot> slots = new HashMap<String, Slot>((int) (serializables.size() / 0.75F) + 1);
+        for (Map.Entry<PropertyDescriptor, SerializableAttribute> entry : serializables.entrySet()) {
+            PropertyDescriptor property = entry.getKey();
+            IndexableAttribute indexable = indexables.get(property);
+            String name = indexable != null && indexable.getIndexName() != null ? indexable.getIndexName() : property.getName();
+            slots.put(name, new Slot(slots.size(), property, accessors.get(property), signatures.get(property), entry.getValue()));
+        }
+        return new ReadPlan(clazz, slots, slots.get("_id"));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.core.impl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.elasticsearch.common.Classes;
+import org.elasticsearch.common.inject.internal.cglib.core.CodeGenerationException;
+import org.elasticsearch.common.inject.internal.cglib.reflect.FastClass;
+import org.elasticsearch.common.inject.internal.cglib.reflect.FastConstructor;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+/**
+ * Type codes, names and constructors of the registered classes, shared by the mapper, the writer and the reader.
+ *
+ * @author alois.cochard
+ *
+ */
+final class TypeRegistry {
+
+    private static final ESLogger logger = Loggers.getLogger(TypeRegistry.class);
+
+    /**
+     * Creates the instances of a class with its constructor without arguments.
+     */
+    private interface Instantiator {
+
+        Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException;
+    }
+
+    private static final class GeneratedInstantiator implements Instantiator {
+
+        private final FastConstructor constructor;
+
+        GeneratedInstantiator(FastConstructor constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public Object newInstance() throws InvocationTargetException {
+            return constructor.newInstance();
+        }
+    }
+
+    private static final class ReflectiveInstantiator implements Instantiator {
+
+        private final Constructor<?> constructor;
+
+        ReflectiveInstantiator(Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+            return constructor.newInstance();
+        }
+    }
+
+    private ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<String, Class<?>>();
+
+    private ConcurrentMap<Class<?>, String> codes = new ConcurrentHashMap<Class<?>, String>();
+
+    private ConcurrentMap<String, Class<?>> names = new ConcurrentHashMap<String, Class<?>>();
+
+    private ConcurrentMap<Class<?>, Instantiator> instantiators = new ConcurrentHashMap<Class<?>, Instantiator>();
+
+    private ClassLoader classLoader;
+
+    TypeRegistry() {
+        this(Classes.getDefaultClassLoader());
+    }
+
+    TypeRegistry(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    void add(Class<?> clazz, String code) throws NoSuchMethodException {
+        if (!clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers())) {
+            // Failing on registration rather than on the first read
+            getInstantiator(clazz);
+        }
+        // First registered class wins, a code must always resolve to the same class
+        if (classes.putIfAbsent(code, clazz) == null) {
+            codes.putIfAbsent(clazz, code);
+        }
+        names.putIfAbsent(clazz.getCanonicalName(), clazz);
+    }
+
+    String getCode(Class<?> clazz) {
+        return codes.get(clazz);
+    }
+
+    Class<?> resolve(String code) {
+        return classes.get(code);
+    }
+
+    /**
+     * Resolve a '_class' value, being either a type code or a class name. Only registered classes
+     * and subclasses of the expected registered class are resolved, the latter being loaded once.
+     * Whatever the path, the resolved class must be the expected class or one of its subclasses.
+     */
+    Class<?> forName(String name, Class<?> expected) throws ClassNotFoundException {
+        Class<?> clazz = classes.get(name);
+        if (clazz == null) {
+            clazz = names.get(name);
+        }
+        boolean loaded = clazz == null;
+        if (loaded) {
+            if (expected == null || !codes.containsKey(expected)) {
+                throw new ClassNotFoundException(String.format("Class [%s] isn't registered", name));
+            }
+            // Not initialized until known to be a subclass
+            clazz = Class.forName(name, false, classLoader);
+        }
+        if (expected != null && !expected.isAssignableFrom(clazz)) {
+            throw new ClassNotFoundException(String.format("Class [%s] isn't a subclass of [%s]", name, expected.getName()));
+        }
+        if (loaded) {
+            Class<?> c = names.putIfAbsent(name, clazz);
+            clazz = c != null ? c : clazz;
+        }
+        return clazz;
+    }
+
+    Object newInstance(Class<?> clazz) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        Instantiator instantiator = instantiators.get(clazz);
+        if (instantiator == null) {
+            if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+                throw new InstantiationException(String.format("Abstract class [%s] can't be instantiated", clazz.getName()));
+            }
+            try {
+                instantiator = getInstantiator(clazz);
+            } catch (NoSuchMethodException e) {
+                throw new InstantiationException(String.format("No constructor without arguments for [%s]", clazz.getName()));
+            }
+        }
+        return instantiator.newInstance();
+    }
+
+    private Instantiator getInstantiator(Class<?> clazz) throws NoSuchMethodException {
+        Instantiator instantiator = instantiators.get(clazz);
+        if (instantiator == null) {
+            instantiator = createInstantiator(clazz, clazz.getDeclaredConstructor());
+            Instantiator i = instantiators.putIfAbsent(clazz, instantiator);
+            instantiator = i != null ? i : instantiator;
+        }
+        return instantiator;
+    }
+
+    private Instantiator createInstantiator(Class<?> clazz, Constructor<?> constructor) {
+        // Generated bytecode can only call public constructors, like the generated property accessors
+        if (Modifier.isPublic(clazz.getModifiers()) && Modifier.isPublic(constructor.getModifiers())) {
+            try {
+                return new GeneratedInstantiator(FastClass.create(clazz.getClassLoader(), clazz).getConstructor(constructor));
+            } catch (CodeGenerationException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Unable to generate instantiator for [{}], falling back to reflection: {}", clazz, e.getMessage());
+                }
+            }
+        }
+        // Access checks are done once, not on every instantiation
+        constructor.setAccessible(true);
+        return new ReflectiveInstantiator(constructor);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.core.impl;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.osem.annotations.AttributeSource;
+import org.elasticsearch.osem.annotations.IndexableAttribute;
+import org.elasticsearch.osem.annotations.SerializableAttribute;
+import org.elasticsearch.osem.property.PropertyAccessor;
+import org.elasticsearch.osem.property.PropertyAccessorSource;
+import org.elasticsearch.osem.property.PropertySignature;
+import org.elasticsearch.osem.property.PropertySignatureSource;
+import org.elasticsearch.osem.property.PropertyTypeAdapter;
+
+/**
+ * Immutable serialization plan of a class, resolved once and replayed for every written object.
+ *
+ * @author alois.cochard
+ *
+ */
+final class WritePlan {
+
+    static final class Slot {
+
+        final String name;
+
+        final XContentBuilderString encodedName;
+
+        final PropertyAccessor accessor;
+
+        final PropertySignature signature;
+
+        final SerializableAttribute serializable;
+
+        final PropertyTypeAdapter<Object> adapter;
+
+        final boolean id;
+
+        final boolean raw;
+
+        Slot(String name, PropertyAccessor accessor, PropertySignature signature, SerializableAttribute serializable) {
+            this.name = name;
+            this.encodedName = encode(name);
+            this.accessor = accessor;
+            this.signature = signature;
+            this.serializable = serializable;
+            this.adapter = signature.getType().getAdapter();
+            this.id = name.equals("_id");
+            this.raw = serializable != null && serializable.isRaw();
+        }
+    }
+
+    static final XContentBuilderString CLASS_FIELD = encode(ObjectContextImpl.CLASS_FIELD_NAME);
+
+    private static final Comparator<Slot> ORDER = new Comparator<Slot>() {
+        @Override
+        public int compare(Slot s1, Slot s2) {
+            return s1.name.compareTo(s2.name);
+        }
+    };
+
+    final Class<?> type;
+
+    final String className;
+
+    final String code;
+
+    final Slot[] slots;
+
+    private WritePlan(Class<?> type, String code, Slot[] slots) {
+        this.type = type;
+        this.className = type.getCanonicalName();
+        this.code = code != null ? code : className;
+        this.slots = slots;
+    }
+
+    static WritePlan create(Class<?> clazz, TypeRegistry registry, AttributeSource attributes, PropertySignatureSource signatures,
+            PropertyAccessorSource accessors) {
+        Map<PropertyDescriptor, IndexableAttribute> indexables = attributes.getIndexableProperties(clazz);
+        List<Slot> slots = new ArrayList<Slot>();
+        for (Map.Entry<PropertyDescriptor, SerializableAttribute> entry : attributes.getSerializableProperties(clazz).entrySet()) {
+            PropertyDescriptor property = entry.getKey();
+            IndexableAttribute indexable = indexables.get(property);
+            String name = indexable != null && indexable.getIndexName() != null ? indexable.getIndexName() : property.getName();
+            slots.add(new Slot(name, accessors.get(property), signatures.get(property), entry.getValue()));
+        }
+        // Properties come from hash maps, sorting them for identical objects to give identical documents
+        Collections.sort(slots, ORDER);
+        return new WritePlan(clazz, registry.getCode(clazz), slots.toArray(new Slot[slots.size()]));
+    }
+
+    /**
+     * Encode the name once, when the builder would write it unchanged: without case conversion
+     * pre-encoded names are always written in their underscore form.
+     */
+    private static XContentBuilderString encode(String name) {
+        XContentBuilderString encoded = new XContentBuilderString(name);
+        return encoded.underscore().getValue().equals(name) ? encoded : null;
+    }
+}
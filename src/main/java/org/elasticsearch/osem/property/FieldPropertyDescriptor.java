@@ -0,0 +1,62 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.property;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+
+/**
+ * Property backed by a field, without getter nor setter.
+ *
+ * @author alois.cochard
+ *
+ */
+public class FieldPropertyDescriptor extends PropertyDescriptor {
+
+    private Field field;
+
+    public FieldPropertyDescriptor(Field field) throws IntrospectionException {
+        super(field.getName(), null, null);
+        this.field = field;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    @Override
+    public Class<?> getPropertyType() {
+        return field.getType();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        return object instanceof FieldPropertyDescriptor && field.equals(((FieldPropertyDescriptor) object).field);
+    }
+
+    @Override
+    public int hashCode() {
+        return field.hashCode();
+    }
+
+}
@@ -18,12 +18,17 @@
  */
 package org.elasticsearch.osem.property;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
-import org.elasticsearch.common.joda.time.format.ISODateTimeFormat;
+import org.elasticsearch.common.joda.FormatDateTimeFormatter;
+import org.elasticsearch.common.joda.Joda;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
 import org.elasticsearch.index.mapper.xcontent.BooleanFieldMapper;
 import org.elasticsearch.index.mapper.xcontent.DateFieldMapper;
@@ -48,21 +53,22 @@ public enum PropertyType {
     // TODO [alois.cochard] Use adapter generic instead of static class ?
     Array,
     //Binary(BinaryFieldMapper.Builder.class, Byte.class), // FIXME [alois.cochard] handle binary correctly !
-    Boolean(Boolean.class, new BooleanTypeAdapter()),
+    Boolean(Boolean.class, boolean.class, new BooleanTypeAdapter()),
     Collection,
     Date(java.util.Date.class, new DateTypeAdapter()),
-    Double(Double.class, new DoubleTypeAdapter()),
-    Float(Float.class, new FloatTypeAdapter()),
-    Integer(Integer.class, new IntegerTypeAdapter()),
-    Long(Long.class, new LongTypeAdapter()),
+    Double(Double.class, double.class, new DoubleTypeAdapter()),
+    Float(Float.class, float.class, new FloatTypeAdapter()),
+    Integer(Integer.class, int.class, new IntegerTypeAdapter()),
+    Long(Long.class, long.class, new LongTypeAdapter()),
+    Map,
     Object,
-    Short(Short.class, new ShortTypeAdapter()),
+    Short(Short.class, short.class, new ShortTypeAdapter()),
     String(String.class, new StringTypeAdapter()),
     Uri(URI.class, new UriTypeAdapter());
 
     public static PropertyType get(Class<?> clazz) {
         for (PropertyType type : PropertyType.values()) {
-            if (type.typeClass != null && type.typeClass.equals(clazz)) {
+            if (type.typeClass != null && (type.typeClass.equals(clazz) || clazz.equals(type.primitiveClass))) {
                 return type;
             }
         }
@@ -71,13 +77,20 @@ public enum PropertyType {
 
     private Class<?> typeClass;
 
+    private Class<?> primitiveClass;
+
     private PropertyTypeAdapter<?> adapter;
 
     private PropertyType() {
     }
 
     private PropertyType(Class<?> typeClass, PropertyTypeAdapter<?> adapter) {
+        this(typeClass, null, adapter);
+    }
+
+    private PropertyType(Class<?> typeClass, Class<?> primitiveClass, PropertyTypeAdapter<?> adapter) {
         this.typeClass = typeClass;
+        this.primitiveClass = primitiveClass;
         this.adapter = adapter;
     }
 
@@ -100,13 +113,13 @@ abstract class AbstractTypeAdapter<T> implements PropertyTypeAdapter<T> {
 
     @SuppressWarnings("unchecked")
     @Override
-    public T read(SerializableAttribute attribute, String value) {
+    public T read(SerializableAttribute attribute, Object value) {
         return (T) value;
     }
 
     @Override
-    public String write(SerializableAttribute attribute, T value) {
-        return value.toString();
+    public void write(XContentBuilder builder, SerializableAttribute attribute, T value) throws IOException {
+        builder.value(value.toString());
     }
 
     protected Field.Index getIndex(Index index) {
@@ -175,10 +188,29 @@ class BooleanTypeAdapter extends AbstractTypeAdapter<Boolean> {
         return builder;
     }
 
+    @Override
+    public Boolean read(SerializableAttribute attribute, Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return Boolean.valueOf(value.toString());
+    }
+
+    @Override
+    public void write(XContentBuilder builder, SerializableAttribute attribute, Boolean value) throws IOException {
+        builder.value(value.booleanValue());
+    }
+
 }
 
 class DateTypeAdapter extends AbstractTypeAdapter<java.util.Date> {
 
+    static final String MILLIS_FORMAT = "millis";
+
+    private static final String DEFAULT_FORMAT = "dateOptionalTime";
+
+    private ConcurrentMap<String, FormatDateTimeFormatter> formatters = new ConcurrentHashMap<String, FormatDateTimeFormatter>();
+
     @Override
     public Builder<?, ?> build(SerializableAttribute serializable, IndexableAttribute indexable, String name) {
         DateFieldMapper.Builder builder = new DateFieldMapper.Builder(name);
@@ -189,8 +221,9 @@ class DateTypeAdapter extends AbstractTypeAdapter<java.util.Date> {
             builder.includeInAll(indexable.getIncludeInAll());
         }
         //if (indexable.getIndexName() != null) { builder.indexName(indexable.getIndexName()); }
-        // TODO [alois.cochard] date format handling
-        //serializable.getFormat()
+        if (serializable.getFormat() != null && !serializable.getFormat().equals(MILLIS_FORMAT)) {
+            builder.dateTimeFormatter(getFormatter(serializable.getFormat()));
+        }
         if (serializable.getNullValue() != null) {
             builder.nullValue(serializable.getNullValue());
         }
@@ -204,13 +237,39 @@ class DateTypeAdapter extends AbstractTypeAdapter<java.util.Date> {
     }
 
     @Override
-    public java.util.Date read(SerializableAttribute attribute, String value) {
-        return ISODateTimeFormat.dateTime().parseDateTime(value).toDate();
+    public java.util.Date read(SerializableAttribute attribute, Object value) {
+        if (value instanceof Number) {
+            return new java.util.Date(((Number) value).longValue());
+        }
+        String format = attribute != null ? attribute.getFormat() : null;
+        if (MILLIS_FORMAT.equals(format)) {
+            return new java.util.Date(Long.parseLong(value.toString()));
+        }
+        return new java.util.Date(getFormatter(format).parser().parseMillis(value.toString()));
     }
 
     @Override
-    public String write(SerializableAttribute attritute, java.util.Date value) {
-        return ISODateTimeFormat.dateTime().print(value.getTime());
+    public void write(XContentBuilder builder, SerializableAttribute attribute, java.util.Date value) throws IOException {
+        String format = attribute != null ? attribute.getFormat() : null;
+        if (MILLIS_FORMAT.equals(format)) {
+            // Dates are indexed from their epoch milliseconds whatever the mapping format
+            builder.value(value.getTime());
+        } else {
+            builder.value(getFormatter(format).printer().print(value.getTime()));
+        }
+    }
+
+    private FormatDateTimeFormatter getFormatter(String format) {
+        if (format == null) {
+            format = DEFAULT_FORMAT;
+        }
+        FormatDateTimeFormatter formatter = formatters.get(format);
+        if (formatter == null) {
+            formatter = Joda.forPattern(format);
+            FormatDateTimeFormatter f = formatters.putIfAbsent(format, formatter);
+            formatter = f != null ? f : formatter;
+        }
+        return formatter;
     }
 
 }
@@ -239,6 +298,19 @@ class DoubleTypeAdapter extends AbstractTypeAdapter<Double> {
         return builder;
     }
 
+    @Override
+    public Double read(SerializableAttribute attribute, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return Double.parseDouble(value.toString());
+    }
+
+    @Override
+    public void write(XContentBuilder builder, SerializableAttribute attribute, Double value) throws IOException {
+        builder.value(value.doubleValue());
+    }
+
 }
 
 class FloatTypeAdapter extends AbstractTypeAdapter<Float> {
@@ -265,6 +337,19 @@ class FloatTypeAdapter extends AbstractTypeAdapter<Float> {
         return builder;
     }
 
+    @Override
+    public Float read(SerializableAttribute attribute, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).floatValue();
+        }
+        return Float.parseFloat(value.toString());
+    }
+
+    @Override
+    public void write(XContentBuilder builder, SerializableAttribute attribute, Float value) throws IOException {
+        builder.value(value.floatValue());
+    }
+
 }
 
 class IntegerTypeAdapter extends AbstractTypeAdapter<Integer> {
@@ -291,6 +376,19 @@ class IntegerTypeAdapter extends AbstractTypeAdapter<Integer> {
         return builder;
     }
 
+    @Override
+    public Integer read(SerializableAttribute attribute, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return Integer.parseInt(value.toString());
+    }
+
+    @Override
+    public void write(XContentBuilder builder, SerializableAttribute attribute, Integer value) throws IOException {
+        builder.value(value.intValue());
+    }
+
 }
 
 class LongTypeAdapter extends AbstractTypeAdapter<Long> {
@@ -317,6 +415,19 @@ class LongTypeAdapter extends AbstractTypeAdapter<Long> {
         return builder;
     }
 
+    @Override
+    public Long read(SerializableAttribute attribute, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+
+    @Override
+    public void write(XContentBuilder builder, SerializableAttribute attribute, Long value) throws IOException {
+        builder.value(value.longValue());
+    }
+
 }
 
 class ShortTypeAdapter extends AbstractTypeAdapter<Short> {
@@ -344,6 +455,19 @@ class ShortTypeAdapter extends AbstractTypeAdapter<Short> {
         return builder;
     }
 
+    @Override
+    public Short read(SerializableAttribute attribute, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).shortValue();
+        }
+        return Short.parseShort(value.toString());
+    }
+
+    @Override
+    public void write(XContentBuilder builder, SerializableAttribute attribute, Short value) throws IOException {
+        builder.value(value.intValue());
+    }
+
 }
 
 abstract class AbstractStringTypeAdapter<T> extends AbstractTypeAdapter<T> {
@@ -402,9 +526,9 @@ class StringTypeAdapter extends AbstractStringTypeAdapter<String> {
 class UriTypeAdapter extends AbstractStringTypeAdapter<URI> {
 
     @Override
-    public URI read(SerializableAttribute attribute, String value) {
+    public URI read(SerializableAttribute attribute, Object value) {
         try {
-            return new URI(value);
+            return new URI(value.toString());
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
         }
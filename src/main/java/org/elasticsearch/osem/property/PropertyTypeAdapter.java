@@ -16,22 +16,31 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.elasticsearch.osem.property;
-
+package org.elasticsearch.osem.property;
+
+import java.io.IOException;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.mapper.xcontent.XContentMapper;
 import org.elasticsearch.osem.annotations.IndexableAttribute;
-import org.elasticsearch.osem.annotations.SerializableAttribute;
+import org.elasticsearch.osem.annotations.SerializableAttribute;
 
 /**
  * 
  * @author alois.cochard
  *
- */
+ */
 public interface PropertyTypeAdapter<T> {
-	
-	XContentMapper.Builder<?, ?>  build(SerializableAttribute serializable, IndexableAttribute indexable, String name);	
-
-	T read(SerializableAttribute serializable, String value);
-	
-	String write(SerializableAttribute serializable, T value);
-}
+
+    XContentMapper.Builder<?, ?> build(SerializableAttribute serializable, IndexableAttribute indexable, String name);
+
+    /**
+     * Convert a source value, either a native JSON value (number, boolean, string) or its textual representation.
+     */
+    T read(SerializableAttribute serializable, Object value);
+
+    /**
+     * Write the value using the native JSON type of the property.
+     */
+    void write(XContentBuilder builder, SerializableAttribute serializable, T value) throws IOException;
+}
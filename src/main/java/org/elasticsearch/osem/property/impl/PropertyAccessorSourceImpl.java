@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.property.impl;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.elasticsearch.common.inject.internal.cglib.core.CodeGenerationException;
+import org.elasticsearch.common.inject.internal.cglib.reflect.FastClass;
+import org.elasticsearch.common.inject.internal.cglib.reflect.FastMethod;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.osem.property.FieldPropertyDescriptor;
+import org.elasticsearch.osem.property.PropertyAccessor;
+import org.elasticsearch.osem.property.PropertyAccessorSource;
+
+/**
+ * 
+ * @author alois.cochard
+ *
+ */
+public class PropertyAccessorSourceImpl implements PropertyAccessorSource {
+
+    private static final ESLogger logger = Loggers.getLogger(PropertyAccessorSourceImpl.class);
+
+    private ConcurrentMap<PropertyDescriptor, PropertyAccessor> accessors = new ConcurrentHashMap<PropertyDescriptor, PropertyAccessor>();
+
+    private ConcurrentMap<Class<?>, FastClass> fastClasses = new ConcurrentHashMap<Class<?>, FastClass>();
+
+    @Override
+    public PropertyAccessor get(PropertyDescriptor property) {
+        PropertyAccessor accessor = accessors.get(property);
+        if (accessor == null) {
+            if (property instanceof FieldPropertyDescriptor) {
+                accessor = new FieldPropertyAccessor(((FieldPropertyDescriptor) property).getField());
+            } else {
+                accessor = create(property.getReadMethod(), property.getWriteMethod());
+            }
+            PropertyAccessor a = accessors.putIfAbsent(property, accessor);
+            accessor = a != null ? a : accessor;
+        }
+        return accessor;
+    }
+
+    private PropertyAccessor create(Method getter, Method setter) {
+        RuntimeException exception = null;
+        try {
+            return new GeneratedPropertyAccessor(getFastMethod(getter), getFastMethod(setter));
+        } catch (CodeGenerationException e) {
+            exception = e;
+        } catch (IllegalArgumentException e) {
+            exception = e;
+        }
+        // Generation is an optimization only, reflection is always able to access public bean methods
+        if (logger.isDebugEnabled()) {
+            logger.debug("Unable to generate accessor for [{}], falling back to reflection: {}", getter != null ? getter : setter, exception
+                    .getMessage());
+        }
+        return new ReflectivePropertyAccessor(getter, setter);
+    }
+
+    private FastMethod getFastMethod(Method method) {
+        if (method == null) {
+            return null;
+        }
+        Class<?> clazz = method.getDeclaringClass();
+        if (!Modifier.isPublic(clazz.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+            throw new IllegalArgumentException("Method isn't publicly accessible");
+        }
+        FastClass fastClass = fastClasses.get(clazz);
+        if (fastClass == null) {
+            fastClass = FastClass.create(clazz.getClassLoader(), clazz);
+            FastClass f = fastClasses.putIfAbsent(clazz, fastClass);
+            fastClass = f != null ? f : fastClass;
+        }
+        return fastClass.getMethod(method);
+    }
+}
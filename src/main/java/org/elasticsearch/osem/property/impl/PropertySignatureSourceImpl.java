@@ -19,15 +19,21 @@
 package org.elasticsearch.osem.property.impl;
 
 import java.beans.PropertyDescriptor;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.elasticsearch.osem.property.FieldPropertyDescriptor;
 import org.elasticsearch.osem.property.PropertySignature;
 import org.elasticsearch.osem.property.PropertySignatureSource;
 import org.elasticsearch.osem.property.PropertyType;
@@ -43,6 +49,9 @@ public class PropertySignatureSourceImpl implements PropertySignatureSource {
 
     @Override
     public PropertySignature get(PropertyDescriptor property) {
+        if (property instanceof FieldPropertyDescriptor) {
+            return get(((FieldPropertyDescriptor) property).getField().getGenericType());
+        }
         return get(property.getReadMethod().getGenericReturnType());
     }
 
@@ -63,7 +72,6 @@ public class PropertySignatureSourceImpl implements PropertySignatureSource {
 
     }
 
-    // TODO [alois.cochard] map handling
     // FIXME [alois.cochard] Add ignoring of Collection/Map not parameterized
     private PropertySignature create(Type type) {
         PropertySignatureImpl signature = new PropertySignatureImpl();
@@ -79,9 +87,10 @@ public class PropertySignatureSourceImpl implements PropertySignatureSource {
             // TODO [alois.cochard] Unmanaged type exception
         }
 
-        if (Collection.class.isAssignableFrom(clazz)) {
+        // Other Iterable beans are objects, a list can't be read back into them
+        if (Collection.class.isAssignableFrom(clazz) || clazz == Iterable.class || clazz == Iterator.class) {
             if (parameterizedType != null) {
-                // Parameterized Collection
+                // Parameterized Collection, Iterable or Iterator
                 parameterizedType.getRawType();
                 // FIXME [alois.cochard] if parameterized type has not annotation, composite is null (need to auto add attribute on POJO with no annotation)
                 signature.setComposite(get(parameterizedType.getActualTypeArguments()[0]));
@@ -94,10 +103,19 @@ public class PropertySignatureSourceImpl implements PropertySignatureSource {
             } else {
                 // TODO [alois.cochard] Collection not parameterized are not supported exception
             }
+        } else if (Map.class.isAssignableFrom(clazz)) {
+            // Keys are field names, read back as strings
+            if (parameterizedType == null || parameterizedType.getActualTypeArguments()[0] != String.class) {
+                throw new IllegalArgumentException(String.format("Unsupported map type [%s], keys must be strings", type));
+            }
+            signature.setComposite(get(parameterizedType.getActualTypeArguments()[1]));
+            signature.setType(PropertyType.Map);
+            signature.setTypeClass(getMapClass(clazz, type));
         } else if (clazz.isArray()) {
             // Array
             signature.setComposite(create(clazz.getComponentType()));
             signature.setType(PropertyType.Array);
+            signature.setTypeClass(clazz);
         } else {
             PropertyType fieldType = PropertyType.get(clazz);
             signature.setTypeClass(clazz);
@@ -106,4 +124,23 @@ public class PropertySignatureSourceImpl implements PropertySignatureSource {
         return signature;
     }
 
+    /**
+     * Get the class of the maps read for the declared type, the type itself if it can be instantiated.
+     */
+    private Class<?> getMapClass(Class<?> clazz, Type type) {
+        if (clazz.isAssignableFrom(HashMap.class)) {
+            return HashMap.class;
+        } else if (clazz.isAssignableFrom(TreeMap.class)) {
+            return TreeMap.class;
+        } else if (!clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers())) {
+            try {
+                clazz.getDeclaredConstructor();
+                return clazz;
+            } catch (NoSuchMethodException e) {
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unsupported map type [%s], maps must be instantiable or read as a HashMap or TreeMap",
+                type));
+    }
+
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.property.impl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.elasticsearch.osem.property.PropertyAccessor;
+
+/**
+ * Fallback accessor invoking the property getter and setter through reflection.
+ * 
+ * @author alois.cochard
+ *
+ */
+public class ReflectivePropertyAccessor implements PropertyAccessor {
+
+    private Method getter;
+
+    private Method setter;
+
+    public ReflectivePropertyAccessor(Method getter, Method setter) {
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    @Override
+    public Object get(Object object) throws IllegalAccessException, InvocationTargetException {
+        return getter.invoke(object);
+    }
+
+    @Override
+    public void set(Object object, Object value) throws IllegalAccessException, InvocationTargetException {
+        setter.invoke(object, value);
+    }
+
+}
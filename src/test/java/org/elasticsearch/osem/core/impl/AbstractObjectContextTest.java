@@ -21,7 +21,9 @@ package org.elasticsearch.osem.core.impl;
 import org.testng.annotations.BeforeMethod;
 import org.elasticsearch.osem.annotations.AttributeSource;
 import org.elasticsearch.osem.annotations.impl.AttributeSourceImpl;
+import org.elasticsearch.osem.property.PropertyAccessorSource;
 import org.elasticsearch.osem.property.PropertySignatureSource;
+import org.elasticsearch.osem.property.impl.PropertyAccessorSourceImpl;
 import org.elasticsearch.osem.property.impl.PropertySignatureSourceImpl;
 
 /**
@@ -36,5 +38,8 @@ public class AbstractObjectContextTest {
     protected PropertySignatureSource createSignatures() {
         return new PropertySignatureSourceImpl();
     }
+    protected PropertyAccessorSource createAccessors() {
+        return new PropertyAccessorSourceImpl();
+    }
     
 }
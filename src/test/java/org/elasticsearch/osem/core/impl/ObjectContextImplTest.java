@@ -20,11 +20,31 @@ package org.elasticsearch.osem.core.impl;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.osem.core.ObjectContext;
+import org.elasticsearch.osem.core.ObjectContextMappingException;
 import org.elasticsearch.osem.core.ObjectContextSerializationException;
+import org.elasticsearch.osem.pojo.metrics.Event;
+import org.elasticsearch.osem.pojo.metrics.Histogram;
+import org.elasticsearch.osem.pojo.metrics.Measure;
+import org.elasticsearch.osem.pojo.metrics.Metric;
+import org.elasticsearch.osem.pojo.metrics.Path;
+import org.elasticsearch.osem.pojo.metrics.Report;
+import org.elasticsearch.osem.pojo.metrics.Sample;
+import org.elasticsearch.osem.pojo.metrics.Series;
+import org.elasticsearch.osem.pojo.metrics.Snapshot;
+import org.elasticsearch.osem.pojo.metrics.Threshold;
 import org.elasticsearch.osem.pojo.twitter.Tweet;
 import org.elasticsearch.osem.pojo.users.Contact;
 import org.elasticsearch.osem.pojo.users.EmailContact;
@@ -69,6 +89,24 @@ public class ObjectContextImplTest {
         AssertJUnit.assertEquals(tweet.getDate(), t.getDate());
     }
 
+    @Test
+    public void testSmile() throws ObjectContextSerializationException, IOException {
+        Tweet tweet = new Tweet();
+        tweet.setUser("aloiscochard");
+        tweet.setMessage("#ElasticSearch: You know, for search !");
+        tweet.setDate(new Date());
+
+        context = new ObjectContextImpl(ImmutableSettings.settingsBuilder().put(ObjectContextWriterImpl.CONTENT_TYPE_SETTING, "smile").build());
+        context.add(Tweet.class);
+
+        byte[] smile = context.write(tweet).copiedBytes();
+        AssertJUnit.assertEquals(XContentType.SMILE, XContentFactory.xContentType(smile));
+        Tweet t = context.read(new InternalSearchHit(1, "1", "tweet", smile, null));
+        AssertJUnit.assertEquals(tweet.getUser(), t.getUser());
+        AssertJUnit.assertEquals(tweet.getMessage(), t.getMessage());
+        AssertJUnit.assertEquals(tweet.getDate(), t.getDate());
+    }
+
     @Test
     public void testPolymorphism() throws ObjectContextSerializationException, IOException {
         Collection<Contact> contacts = new ArrayList<Contact>();
@@ -89,4 +127,221 @@ public class ObjectContextImplTest {
         User u = context.read(new InternalSearchHit(1, "1", "user", json.getBytes(), null));
 
     }
+
+    @Test
+    public void testInstantiation() {
+        try {
+            context.add(Sample.class);
+            AssertJUnit.fail();
+        } catch (ObjectContextMappingException e) {
+            AssertJUnit.assertTrue(e.getCause() instanceof NoSuchMethodException);
+        }
+        AssertJUnit.assertFalse(context.isRegistred(Sample.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testCompact() throws ObjectContextSerializationException, IOException {
+        Collection<Contact> contacts = new ArrayList<Contact>();
+
+        EmailContact email = new EmailContact();
+        email.setEmail("user@domain.ext");
+        contacts.add(email);
+
+        PhoneContact phone = new PhoneContact();
+        phone.setNumber("++XX XXX XX XX");
+        contacts.add(phone);
+
+        User user = new User();
+        user.setContacts(contacts);
+
+        context = new ObjectContextImpl(ImmutableSettings.settingsBuilder().put(ObjectContextWriterImpl.PROFILE_SETTING, "compact").build());
+        context.add(User.class);
+        context.add(EmailContact.class);
+        byte[] json = context.write(user).copiedBytes();
+
+        // Null properties and the class of the root object are omitted, registered classes are written with their type code
+        Map<String, Object> source = JsonXContent.jsonXContent.createParser(json).mapAndClose();
+        AssertJUnit.assertEquals(1, source.size());
+        List<Map<String, Object>> c = (List<Map<String, Object>>) source.get("contacts");
+        AssertJUnit.assertEquals("emailcontact", c.get(0).get(ObjectContextImpl.CLASS_FIELD_NAME));
+        AssertJUnit.assertEquals(PhoneContact.class.getCanonicalName(), c.get(1).get(ObjectContextImpl.CLASS_FIELD_NAME));
+
+        User u = context.read(new InternalSearchHit(1, "1", "user", json, null));
+        AssertJUnit.assertEquals("1", u.getId());
+        AssertJUnit.assertNull(u.getName());
+        Iterator<Contact> iterator = u.getContacts().iterator();
+        AssertJUnit.assertEquals(email.getEmail(), ((EmailContact) iterator.next()).getEmail());
+        AssertJUnit.assertEquals(phone.getNumber(), ((PhoneContact) iterator.next()).getNumber());
+    }
+
+    @Test
+    public void testNativeTypes() throws ObjectContextSerializationException, IOException {
+        Metric metric = new Metric();
+        metric.setName("requests");
+        metric.setEnabled(true);
+        metric.setLevel((short) 3);
+        metric.setCount(42);
+        metric.setTotal(Long.MAX_VALUE);
+        metric.setRatio(0.5F);
+        metric.setAverage(1.25D);
+
+        context.add(Metric.class);
+        byte[] json = context.write(metric).copiedBytes();
+
+        // Numbers and booleans are written as native JSON values
+        Map<String, Object> source = JsonXContent.jsonXContent.createParser(json).mapAndClose();
+        AssertJUnit.assertEquals(Boolean.TRUE, source.get("enabled"));
+        AssertJUnit.assertEquals(42, ((Number) source.get("count")).intValue());
+        AssertJUnit.assertEquals(Long.MAX_VALUE, ((Number) source.get("total")).longValue());
+
+        Metric m = context.read(new InternalSearchHit(1, "1", "metric", json, null));
+        AssertJUnit.assertEquals(metric.getName(), m.getName());
+        AssertJUnit.assertEquals(metric.getEnabled(), m.getEnabled());
+        AssertJUnit.assertEquals(metric.getLevel(), m.getLevel());
+        AssertJUnit.assertEquals(metric.getCount(), m.getCount());
+        AssertJUnit.assertEquals(metric.getTotal(), m.getTotal());
+        AssertJUnit.assertEquals(metric.getRatio(), m.getRatio());
+        AssertJUnit.assertEquals(metric.getAverage(), m.getAverage());
+    }
+
+    @Test
+    public void testDates() throws ObjectContextSerializationException, IOException {
+        Snapshot snapshot = new Snapshot();
+        snapshot.setTimestamp(new Date(1300000000000L));
+        snapshot.setDay(new Date(1299974400000L));
+
+        context.add(Snapshot.class);
+        AssertJUnit.assertTrue(context.getMapping(Snapshot.class).string().contains("\"format\":\"yyyy/MM/dd\""));
+
+        byte[] json = context.write(snapshot).copiedBytes();
+        Map<String, Object> source = JsonXContent.jsonXContent.createParser(json).mapAndClose();
+        AssertJUnit.assertEquals(1300000000000L, ((Number) source.get("timestamp")).longValue());
+        AssertJUnit.assertEquals("2011/03/13", source.get("day"));
+
+        Snapshot s = context.read(new InternalSearchHit(1, "1", "snapshot", json, null));
+        AssertJUnit.assertEquals(snapshot.getTimestamp(), s.getTimestamp());
+        AssertJUnit.assertEquals(snapshot.getDay(), s.getDay());
+    }
+
+    @Test
+    public void testArrays() throws ObjectContextSerializationException, IOException {
+        Histogram histogram = new Histogram();
+        histogram.setBuckets(new int[] { 1, 2, 3 });
+        histogram.setSamples(new double[] { 0.5D, 1.5D });
+        histogram.setTags(new String[] { "cpu", "load" });
+
+        context.add(Histogram.class);
+        byte[] json = context.write(histogram).copiedBytes();
+        Histogram h = context.read(new InternalSearchHit(1, "1", "histogram", json, null));
+
+        AssertJUnit.assertTrue(Arrays.equals(histogram.getBuckets(), h.getBuckets()));
+        AssertJUnit.assertTrue(Arrays.equals(histogram.getSamples(), h.getSamples()));
+        AssertJUnit.assertTrue(Arrays.equals(histogram.getTags(), h.getTags()));
+    }
+
+    @Test
+    public void testMaps() throws ObjectContextSerializationException, IOException {
+        Report report = new Report();
+        Map<String, Integer> counters = new HashMap<String, Integer>();
+        counters.put("hits", 3);
+        counters.put("misses", 1);
+        report.setCounters(counters);
+        Threshold threshold = new Threshold();
+        threshold.setValue(0.9D);
+        threshold.setSeverity("warning");
+        report.setThresholds(new HashMap<String, Threshold>());
+        report.getThresholds().put("high", threshold);
+
+        context.add(Report.class);
+        context.getMapping(Report.class);
+        byte[] json = context.write(report).copiedBytes();
+        Report r = context.read(new InternalSearchHit(1, "1", "report", json, null));
+
+        AssertJUnit.assertEquals(counters, r.getCounters());
+        Threshold t = r.getThresholds().get("high");
+        AssertJUnit.assertEquals(threshold.getValue(), t.getValue());
+        AssertJUnit.assertEquals(threshold.getSeverity(), t.getSeverity());
+    }
+
+    @Test
+    public void testFieldAccess() throws ObjectContextSerializationException, IOException {
+        Measure measure = new Measure("ms", 12.5D);
+
+        context.add(Measure.class);
+        String mapping = context.getMapping(Measure.class).string();
+        AssertJUnit.assertTrue(mapping.contains("\"measure_unit\":{\"type\":\"string\"}"));
+        AssertJUnit.assertFalse(mapping.contains("label"));
+
+        byte[] json = context.write(measure).copiedBytes();
+        Measure m = context.read(new InternalSearchHit(1, "1", "measure", json, null));
+        AssertJUnit.assertEquals("1", m.getId());
+        AssertJUnit.assertEquals(measure.getUnit(), m.getUnit());
+        AssertJUnit.assertEquals(measure.getValue(), m.getValue());
+        AssertJUnit.assertNull(m.getLabel());
+
+        context.setId(m, "2");
+        AssertJUnit.assertEquals("2", context.getId(m));
+    }
+
+    @Test
+    public void testIterables() throws ObjectContextSerializationException, IOException {
+        final List<String> labels = Arrays.asList("cpu", "load");
+        Series series = new Series();
+        // Iterable which isn't a collection
+        series.setLabels(new Iterable<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return labels.iterator();
+            }
+        });
+        series.setReadings(Arrays.asList(0.5D, 1.5D).iterator());
+        // Iterable bean, written as an object
+        Path path = new Path();
+        path.setValue("hosts/web-1");
+        series.setPath(path);
+
+        context.add(Series.class);
+        byte[] json = context.write(series).copiedBytes();
+        Series s = context.read(new InternalSearchHit(1, "1", "series", json, null));
+
+        AssertJUnit.assertEquals(labels, s.getLabels());
+        AssertJUnit.assertEquals(Double.valueOf(0.5D), s.getReadings().next());
+        AssertJUnit.assertEquals(Double.valueOf(1.5D), s.getReadings().next());
+        AssertJUnit.assertFalse(s.getReadings().hasNext());
+        AssertJUnit.assertEquals(path.getValue(), s.getPath().getValue());
+    }
+
+    @Test
+    public void testRaw() throws ObjectContextSerializationException, IOException {
+        Event event = new Event();
+        event.setName("cpu");
+        event.setSource("{\"host\":\"web-1\",\"cores\":[1,2]}");
+        event.setPayload("[true,null]".getBytes("UTF-8"));
+
+        context.add(Event.class);
+        // Raw content is kept in the source without being mapped
+        String mapping = context.getMapping(Event.class).string();
+        AssertJUnit.assertTrue(mapping.contains("\"source\":{\"type\":\"object\",\"enabled\":false}"));
+        AssertJUnit.assertTrue(mapping.contains("\"payload\":{\"type\":\"object\",\"enabled\":false}"));
+
+        String json = context.write(event).string();
+        // Content is embedded verbatim
+        AssertJUnit.assertTrue(json.contains(event.getSource()));
+        AssertJUnit.assertTrue(json.contains("[true,null]"));
+        Map<String, Object> source = JsonXContent.jsonXContent.createParser(json).mapAndClose();
+        AssertJUnit.assertEquals("web-1", ((Map<?, ?>) source.get("source")).get("host"));
+
+        Event e = context.read(new InternalSearchHit(1, "1", "event", json.getBytes("UTF-8"), null));
+        AssertJUnit.assertEquals(event.getName(), e.getName());
+        AssertJUnit.assertEquals(source.get("source"), JsonXContent.jsonXContent.createParser(e.getSource()).mapAndClose());
+        AssertJUnit.assertEquals("[true,null]", new String(e.getPayload(), "UTF-8"));
+
+        // Raw content written first or to a SMILE builder is copied through a parser
+        ObjectContext smile = new ObjectContextImpl(ImmutableSettings.settingsBuilder().put("osem.xcontent.type", "smile").build());
+        smile.add(Event.class);
+        byte[] bytes = smile.write(event).copiedBytes();
+        e = smile.read(new InternalSearchHit(1, "1", "event", bytes, null));
+        AssertJUnit.assertEquals(source.get("source"), JsonXContent.jsonXContent.createParser(e.getSource()).mapAndClose());
+    }
 }
@@ -26,6 +26,15 @@ import java.io.IOException;
 
 import org.elasticsearch.osem.core.ObjectContextMapper;
 import org.elasticsearch.osem.core.ObjectContextMappingException;
+import org.elasticsearch.osem.pojo.graph.Node;
+import org.elasticsearch.osem.pojo.metrics.Dimensions;
+import org.elasticsearch.osem.pojo.metrics.Legend;
+import org.elasticsearch.osem.pojo.metrics.Path;
+import org.elasticsearch.osem.pojo.metrics.Ranking;
+import org.elasticsearch.osem.pojo.metrics.Report;
+import org.elasticsearch.osem.pojo.metrics.Series;
+import org.elasticsearch.osem.pojo.metrics.Shards;
+import org.elasticsearch.osem.pojo.metrics.Threshold;
 import org.elasticsearch.osem.pojo.users.Contact;
 import org.elasticsearch.osem.pojo.users.User;
 
@@ -39,7 +48,7 @@ public class ObjectContextMapperImplTest extends AbstractObjectContextTest {
 
     @BeforeMethod()
 	public void setUp() {
-        mapper = new ObjectContextMapperImpl(createAttributes(), createSignatures());
+        mapper = new ObjectContextMapperImpl(createAttributes(), createSignatures(), createAccessors());
     }
 
     @Test
@@ -61,4 +70,40 @@ public class ObjectContextMapperImplTest extends AbstractObjectContextTest {
         AssertJUnit.assertTrue(mapper.isRegistred(User.class));
         AssertJUnit.assertTrue(mapper.isRegistred(Contact.class));
     }
+
+    @Test
+    public void testAddNested() {
+        // Classes of nested objects are registered, also when referring back to the class
+        mapper.add(Series.class);
+        AssertJUnit.assertTrue(mapper.isRegistred(Path.class));
+        mapper.add(Node.class);
+        AssertJUnit.assertTrue(mapper.isRegistred(Node.class));
+    }
+
+    @Test
+    public void testAddMaps() {
+        mapper.add(Report.class);
+        AssertJUnit.assertTrue(mapper.isRegistred(Threshold.class));
+
+        // Keys are read back as strings, other keys and raw maps are rejected
+        for (Class<?> clazz : new Class<?>[] { Legend.class, Dimensions.class }) {
+            try {
+                mapper.add(clazz);
+                AssertJUnit.fail();
+            } catch (ObjectContextMappingException e) {
+                AssertJUnit.assertTrue(e.getCause().getMessage().contains("keys must be strings"));
+            }
+            AssertJUnit.assertFalse(mapper.isRegistred(clazz));
+        }
+
+        // Maps are read as the declared class, or as a map implementing the declared interface
+        mapper.add(Ranking.class);
+        try {
+            mapper.add(Shards.class);
+            AssertJUnit.fail();
+        } catch (ObjectContextMappingException e) {
+            AssertJUnit.assertTrue(e.getCause().getMessage().contains("must be instantiable"));
+        }
+        AssertJUnit.assertFalse(mapper.isRegistred(Shards.class));
+    }
 }
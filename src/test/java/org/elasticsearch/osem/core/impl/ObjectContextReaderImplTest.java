@@ -23,16 +23,505 @@ package org.elasticsearch.osem.core.impl;
  * @author alois.cochard
  *
  */
-import org.testng.annotations.BeforeMethod;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.osem.core.ObjectContextDeserializationException;
+import org.elasticsearch.osem.core.ObjectContextMapper;
 import org.elasticsearch.osem.core.ObjectContextReader;
+import org.elasticsearch.osem.core.ObjectContextSerializationException;
+import org.elasticsearch.osem.core.ObjectContextWriter;
+import org.elasticsearch.osem.pojo.graph.Node;
+import org.elasticsearch.osem.pojo.metrics.Event;
+import org.elasticsearch.osem.pojo.metrics.Histogram;
+import org.elasticsearch.osem.pojo.metrics.Measure;
+import org.elasticsearch.osem.pojo.metrics.Metric;
+import org.elasticsearch.osem.pojo.metrics.Ranking;
+import org.elasticsearch.osem.pojo.metrics.Report;
+import org.elasticsearch.osem.pojo.metrics.Snapshot;
+import org.elasticsearch.osem.pojo.twitter.Tweet;
+import org.elasticsearch.osem.pojo.users.Contact;
+import org.elasticsearch.osem.pojo.users.EmailContact;
+import org.elasticsearch.osem.pojo.users.PhoneContact;
+import org.elasticsearch.osem.pojo.users.User;
+import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.search.internal.InternalSearchHit;
+import org.elasticsearch.search.internal.InternalSearchHitField;
+import org.elasticsearch.search.internal.InternalSearchHits;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
 
 public class ObjectContextReaderImplTest extends AbstractObjectContextTest {
 
+    private ObjectContextMapper mapper;
+
+    private ObjectContextWriter writer;
+
     private ObjectContextReader reader;
 
     @BeforeMethod()
 	public void setUp() {
-        reader = new ObjectContextReaderImpl(createAttributes(), createSignatures());
+        create(ImmutableSettings.Builder.EMPTY_SETTINGS);
+    }
+
+    /**
+     * Create the reader, sharing its type registry with the mapper registering the classes and the writer of the sources.
+     */
+    private void create(Settings settings) {
+        TypeRegistry registry = new TypeRegistry();
+        mapper = new ObjectContextMapperImpl(createAttributes(), createSignatures(), createAccessors(), registry);
+        writer = new ObjectContextWriterImpl(createAttributes(), createSignatures(), createAccessors(), settings, registry);
+        reader = new ObjectContextReaderImpl(createAttributes(), createSignatures(), createAccessors(), settings, registry);
+    }
+
+    @Test
+    public void testReadTextualValues() throws IOException {
+        mapper.add(Metric.class);
+
+        // Documents written with textual numbers and booleans are still readable
+        String json = "{\"count\":\"42\",\"enabled\":\"true\",\"_class\":\"" + Metric.class.getCanonicalName() + "\"}";
+        Metric m = reader.read(new InternalSearchHit(1, "1", "metric", json.getBytes(), null));
+        AssertJUnit.assertEquals(Integer.valueOf(42), m.getCount());
+        AssertJUnit.assertEquals(Boolean.TRUE, m.getEnabled());
+    }
+
+    @Test
+    public void testReadPlan() throws IOException {
+        mapper.add(Measure.class);
+
+        // Fields are dispatched by index name, the fields of excluded properties being skipped
+        String json = "{\"_class\":\"" + Measure.class.getCanonicalName() + "\",\"measure_unit\":\"s\",\"unit\":\"ms\",\"label\":\"2.5 s\","
+                + "\"value\":2.5}";
+        for (int i = 0; i < 2; i++) {
+            // Streamed, then read from the source map
+            Measure m = reader.read(new InternalSearchHit(1, "1", "measure", json.getBytes(), null));
+            AssertJUnit.assertEquals("s", m.getUnit());
+            AssertJUnit.assertEquals(2.5D, m.getValue());
+            AssertJUnit.assertNull(m.getLabel());
+            json = "{\"measure_unit\":\"s\",\"unit\":\"ms\",\"label\":\"2.5 s\",\"value\":2.5,\"_class\":\"" + Measure.class.getCanonicalName() + "\"}";
+        }
+    }
+
+    @Test
+    public void testReadMaps() throws ObjectContextSerializationException, IOException {
+        mapper.add(Ranking.class);
+
+        Ranking ranking = new Ranking();
+        ranking.setScores(new TreeMap<String, Integer>());
+        ranking.getScores().put("b", 2);
+        ranking.getScores().put("a", 1);
+        ranking.setLabels(new LinkedHashMap<String, String>());
+        ranking.getLabels().put("a", "first");
+        byte[] json = writer.write(ranking).copiedBytes();
+
+        // Maps are read as the declared class, or as a map implementing the declared interface
+        Ranking r = reader.read(new InternalSearchHit(1, "1", "ranking", json, null));
+        AssertJUnit.assertEquals(TreeMap.class, r.getScores().getClass());
+        AssertJUnit.assertEquals(ranking.getScores(), r.getScores());
+        AssertJUnit.assertEquals(ranking.getLabels(), r.getLabels());
+
+        // From the source map
+        String source = "{\"scores\":{\"b\":2,\"a\":1},\"labels\":{\"a\":\"first\"},\"_class\":\"" + Ranking.class.getCanonicalName() + "\"}";
+        r = reader.read(new InternalSearchHit(1, "1", "ranking", source.getBytes(), null));
+        AssertJUnit.assertEquals(TreeMap.class, r.getScores().getClass());
+        AssertJUnit.assertEquals(ranking.getScores(), r.getScores());
+        AssertJUnit.assertEquals(ranking.getLabels(), r.getLabels());
+    }
+
+    @Test
+    public void testReadNulls() throws IOException {
+        mapper.add(Measure.class);
+
+        // Primitives get their default value
+        String json = "{\"_class\":\"" + Measure.class.getCanonicalName() + "\",\"measure_unit\":null,\"value\":null}";
+        for (int i = 0; i < 2; i++) {
+            // Streamed, then read from the source map
+            Measure m = reader.read(new InternalSearchHit(1, "1", "measure", json.getBytes(), null));
+            AssertJUnit.assertNull(m.getUnit());
+            AssertJUnit.assertEquals(0D, m.getValue());
+            json = "{\"measure_unit\":null,\"value\":null,\"_class\":\"" + Measure.class.getCanonicalName() + "\"}";
+        }
+    }
+
+    @Test
+    public void testReadArrays() throws IOException {
+        mapper.add(Histogram.class);
+
+        // Read from the source map when '_class' comes last
+        String json = "{\"buckets\":[1,2,3],\"samples\":[0.5,1],\"tags\":[\"cpu\"],\"_class\":\"" + Histogram.class.getCanonicalName() + "\"}";
+        Histogram h = reader.read(new InternalSearchHit(1, "1", "histogram", json.getBytes(), null));
+        AssertJUnit.assertTrue(Arrays.equals(new int[] { 1, 2, 3 }, h.getBuckets()));
+        AssertJUnit.assertTrue(Arrays.equals(new double[] { 0.5D, 1D }, h.getSamples()));
+        AssertJUnit.assertTrue(Arrays.equals(new String[] { "cpu" }, h.getTags()));
+    }
+
+    @Test
+    public void testReadPrimitiveArrays() throws IOException {
+        mapper.add(Histogram.class);
+
+        // Streamed into buffers growing past their initial size, textual values being converted
+        StringBuilder json = new StringBuilder("{\"_class\":\"" + Histogram.class.getCanonicalName() + "\",\"buckets\":[");
+        int[] buckets = new int[100];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = i;
+            json.append(i > 0 ? "," : "").append(i % 2 == 0 ? String.valueOf(i) : "\"" + i + "\"");
+        }
+        json.append("],\"samples\":[]}");
+        Histogram h = reader.read(new InternalSearchHit(1, "1", "histogram", json.toString().getBytes(), null));
+        AssertJUnit.assertTrue(Arrays.equals(buckets, h.getBuckets()));
+        AssertJUnit.assertEquals(0, h.getSamples().length);
+    }
+
+    @Test
+    public void testReadDates() throws IOException {
+        mapper.add(Snapshot.class);
+
+        // Dates are parsed with the format of their property
+        String json = "{\"_class\":\"" + Snapshot.class.getCanonicalName() + "\",\"timestamp\":1300000000000,\"day\":\"2011/03/13\"}";
+        Snapshot s = reader.read(new InternalSearchHit(1, "1", "snapshot", json.getBytes(), null));
+        AssertJUnit.assertEquals(new Date(1300000000000L), s.getTimestamp());
+        AssertJUnit.assertEquals(new Date(1299974400000L), s.getDay());
+    }
+
+    @Test
+    public void testReadRaw() throws IOException {
+        mapper.add(Event.class);
+        Event event = new Event();
+        event.setName("cpu");
+        XContentBuilder builder = writer.write(event);
+        String expected = builder.string();
+
+        // Raw values are rendered in their own buffer, not in the buffer of the thread
+        String json = "{\"_class\":\"" + Event.class.getCanonicalName() + "\",\"source\":{\"k\":[1,2]}}";
+        Event e = reader.read(new InternalSearchHit(1, "1", "event", json.getBytes(), null));
+        AssertJUnit.assertEquals("{\"k\":[1,2]}", e.getSource());
+        json = "{\"payload\":{\"k\":[1,2]},\"_class\":\"" + Event.class.getCanonicalName() + "\"}";
+        e = reader.read(new InternalSearchHit(1, "1", "event", json.getBytes(), null));
+        AssertJUnit.assertEquals("{\"k\":[1,2]}", new String(e.getPayload()));
+        AssertJUnit.assertEquals(expected, builder.string());
+    }
+
+    @Test
+    public void testStreaming() throws ObjectContextSerializationException, IOException {
+        mapper.add(Tweet.class);
+        mapper.add(User.class);
+        mapper.add(Node.class);
+
+        // Unknown fields are skipped
+        String json = "{\"_class\":\"org.elasticsearch.osem.pojo.twitter.Tweet\",\"retweets\":{\"count\":3,\"ids\":[1,{\"id\":2}]},"
+                + "\"user\":\"aloiscochard\",\"tags\":[\"search\"]}";
+        Tweet t = reader.read(new InternalSearchHit(1, "1", "tweet", json.getBytes(), null));
+        AssertJUnit.assertEquals("aloiscochard", t.getUser());
+
+        // Documents having '_class' after the properties
+        json = "{\"contacts\":[{\"email\":\"user@domain.ext\",\"_class\":\"org.elasticsearch.osem.pojo.users.EmailContact\"}],"
+                + "\"name\":\"alois\",\"_class\":\"org.elasticsearch.osem.pojo.users.User\"}";
+        User u = reader.read(new InternalSearchHit(1, "1", "user", json.getBytes(), null));
+        AssertJUnit.assertEquals("alois", u.getName());
+        AssertJUnit.assertEquals("user@domain.ext", ((EmailContact) u.getContacts().iterator().next()).getEmail());
+
+        // Single nested object
+        Node parent = new Node();
+        parent.setName("root");
+        Node node = new Node();
+        node.setName("child");
+        node.setParent(parent);
+        byte[] bytes = writer.write(node).copiedBytes();
+        Node n = reader.read(new InternalSearchHit(1, "1", "node", bytes, null));
+        AssertJUnit.assertEquals("child", n.getName());
+        AssertJUnit.assertEquals("root", n.getParent().getName());
+        AssertJUnit.assertNull(n.getParent().getParent());
+    }
+
+    @Test
+    public void testClassResolution() throws ObjectContextSerializationException, IOException {
+        mapper.add(User.class);
+
+        // Subclasses of registered classes are resolved
+        String json = "{\"_class\":\"org.elasticsearch.osem.pojo.users.User\",\"contacts\":[{\"_class\":\"org.elasticsearch.osem.pojo.users.PhoneContact\","
+                + "\"number\":\"++XX\"}]}";
+        User u = reader.read(new InternalSearchHit(1, "1", "user", json.getBytes(), null));
+        AssertJUnit.assertEquals("++XX", ((PhoneContact) u.getContacts().iterator().next()).getNumber());
+
+        // Other classes aren't loaded
+        json = "{\"_class\":\"java.util.Date\"}";
+        try {
+            reader.read(new InternalSearchHit(1, "1", "other", json.getBytes(), null));
+            AssertJUnit.fail();
+        } catch (ObjectContextDeserializationException e) {
+            AssertJUnit.assertTrue(e.getCause().getMessage().contains("registered"));
+        }
+        json = "{\"_class\":\"org.elasticsearch.osem.pojo.users.User\",\"contacts\":[{\"_class\":\"java.util.Date\"}]}";
+        try {
+            reader.read(new InternalSearchHit(1, "1", "user", json.getBytes(), null));
+            AssertJUnit.fail();
+        } catch (ObjectContextDeserializationException e) {
+            AssertJUnit.assertTrue(e.getCause().getMessage().contains("subclass"));
+        }
+
+        // Registered classes are only resolved as their own type
+        mapper.add(Tweet.class);
+        json = "{\"_class\":\"org.elasticsearch.osem.pojo.twitter.Tweet\"}";
+        try {
+            reader.read(new InternalSearchHit(1, "1", "user", json.getBytes(), null));
+            AssertJUnit.fail();
+        } catch (ObjectContextDeserializationException e) {
+            AssertJUnit.assertTrue(e.getCause().getMessage().contains("subclass"));
+        }
+    }
+
+    @Test
+    public void testReadAll() throws ObjectContextSerializationException, IOException {
+        create(ImmutableSettings.settingsBuilder().put(ObjectContextReaderImpl.THREADS_SETTING, 4).put(ObjectContextReaderImpl.BATCH_SIZE_SETTING, 64)
+                .put(ObjectContextReaderImpl.PARALLEL_THRESHOLD_SETTING, 100).build());
+        mapper.add(Tweet.class);
+
+        InternalSearchHit[] hits = new InternalSearchHit[1000];
+        for (int i = 0; i < hits.length; i++) {
+            Tweet tweet = new Tweet();
+            tweet.setMessage("message" + i);
+            hits[i] = new InternalSearchHit(i, String.valueOf(i), "tweet", writer.write(tweet).copiedBytes(), null);
+        }
+
+        try {
+            List<Tweet> tweets = reader.readAll(new InternalSearchHits(hits, hits.length, 1F));
+            AssertJUnit.assertEquals(hits.length, tweets.size());
+            for (int i = 0; i < hits.length; i++) {
+                AssertJUnit.assertEquals("message" + i, tweets.get(i).getMessage());
+            }
+        } finally {
+            reader.close();
+        }
+
+        // Under the threshold, read on the calling thread
+        List<Tweet> tweets = reader.readAll(new InternalSearchHits(Arrays.copyOf(hits, 10), 10, 1F));
+        AssertJUnit.assertEquals(10, tweets.size());
+        AssertJUnit.assertEquals("message9", tweets.get(9).getMessage());
+
+        // The threads of the executor are shut down
+        try {
+            reader.readAll(new InternalSearchHits(hits, hits.length, 1F));
+            AssertJUnit.fail();
+        } catch (RejectedExecutionException e) {
+        }
+    }
+
+    @Test
+    public void testLazy() throws ObjectContextSerializationException, IOException {
+        for (String type : new String[] { "json", "smile" }) {
+            create(ImmutableSettings.settingsBuilder().put(ObjectContextReaderImpl.LAZY_SETTING, true)
+                    .put(ObjectContextWriterImpl.CONTENT_TYPE_SETTING, type).build());
+            mapper.add(User.class);
+
+            User user = new User();
+            user.setName("alois");
+            EmailContact email = new EmailContact();
+            email.setEmail("user@domain.ext");
+            user.setContacts(new ArrayList<Contact>(Arrays.asList(email)));
+            byte[] bytes = writer.write(user).copiedBytes();
+
+            User u = reader.read(new InternalSearchHit(1, "1", "user", bytes, null));
+            AssertJUnit.assertEquals("alois", u.getName());
+            AssertJUnit.assertTrue(u.getContacts() instanceof LazyCollections.LazyList);
+            AssertJUnit.assertEquals(1, u.getContacts().size());
+            AssertJUnit.assertEquals("user@domain.ext", ((EmailContact) u.getContacts().iterator().next()).getEmail());
+            u.getContacts().add(new PhoneContact());
+            AssertJUnit.assertEquals(2, u.getContacts().size());
+
+            // Neither the kept content nor the builder of a write is shared with the other
+            XContentBuilder builder = writer.write(user);
+            u = reader.read(new InternalSearchHit(1, "1", "user", bytes, null));
+            AssertJUnit.assertTrue(Arrays.equals(bytes, builder.copiedBytes()));
+            user.setContacts(new ArrayList<Contact>(Arrays.asList(new PhoneContact(), new PhoneContact())));
+            writer.write(user);
+            AssertJUnit.assertEquals(1, u.getContacts().size());
+            AssertJUnit.assertEquals("user@domain.ext", ((EmailContact) u.getContacts().iterator().next()).getEmail());
+        }
+
+        // Elements are only read on first access
+        String json = "{\"_class\":\"org.elasticsearch.osem.pojo.users.User\",\"name\":\"alois\",\"contacts\":[{\"_class\":\"java.util.Date\"}]}";
+        User u = reader.read(new InternalSearchHit(1, "1", "user", json.getBytes(), null));
+        AssertJUnit.assertEquals("alois", u.getName());
+        try {
+            u.getContacts().size();
+            AssertJUnit.fail();
+        } catch (ObjectContextDeserializationException e) {
+            AssertJUnit.assertTrue(e.getCause() instanceof ClassNotFoundException);
+        }
+    }
+
+    @Test
+    public void testLazyConcurrentAccess() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final List<Object> elements = new LazyCollections.LazyList<Object>(new LazyCollections.Loader() {
+            @Override
+            public Collection<Object> load() {
+                loads.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                }
+                return new ArrayList<Object>(Arrays.asList("a", "b"));
+            }
+        });
+
+        // Threads accessing the collection first wait for a single load
+        final AtomicInteger sizes = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    sizes.addAndGet(elements.size());
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        AssertJUnit.assertEquals(1, loads.get());
+        AssertJUnit.assertEquals(2 * threads.length, sizes.get());
+    }
+
+    @Test
+    public void testProjection() throws ObjectContextSerializationException, IOException {
+        Histogram histogram = new Histogram();
+        histogram.setName("cpu");
+        histogram.setTags(new String[] { "a", "b" });
+        histogram.setSamples(new double[] { 0.5D });
+
+        mapper.add(Histogram.class);
+        byte[] json = writer.write(histogram).copiedBytes();
+
+        Histogram h = reader.read(new InternalSearchHit(1, "1", "histogram", json, null), Histogram.class, "name", "tags");
+        AssertJUnit.assertEquals("cpu", h.getName());
+        AssertJUnit.assertTrue(Arrays.equals(histogram.getTags(), h.getTags()));
+        AssertJUnit.assertNull(h.getSamples());
+
+        // From the fields of a hit without source
+        Map<String, SearchHitField> fields = new HashMap<String, SearchHitField>();
+        fields.put("name", new InternalSearchHitField("name", Arrays.<Object> asList("cpu")));
+        fields.put("tags", new InternalSearchHitField("tags", Arrays.<Object> asList("a", "b")));
+        fields.put("samples", new InternalSearchHitField("samples", Arrays.<Object> asList(0.5D)));
+        h = reader.read(new InternalSearchHit(1, "1", "histogram", null, fields), Histogram.class, "name", "tags");
+        AssertJUnit.assertEquals("cpu", h.getName());
+        AssertJUnit.assertTrue(Arrays.equals(histogram.getTags(), h.getTags()));
+        AssertJUnit.assertNull(h.getSamples());
+
+        // Maps and objects aren't held by the fields of a hit
+        mapper.add(Report.class);
+        fields = new HashMap<String, SearchHitField>();
+        fields.put("counters", new InternalSearchHitField("counters", Arrays.<Object> asList(new HashMap<String, Object>())));
+        try {
+            reader.read(new InternalSearchHit(1, "1", "report", null, fields), Report.class, "counters");
+            AssertJUnit.fail();
+        } catch (ObjectContextDeserializationException e) {
+            AssertJUnit.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+
+        try {
+            reader.read(new InternalSearchHit(1, "1", "histogram", json, null), Histogram.class, "unknown");
+            AssertJUnit.fail();
+        } catch (ObjectContextDeserializationException e) {
+            AssertJUnit.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+
+        // The array of names can be reused for another projection
+        String[] properties = new String[] { "name", "tags" };
+        reader.read(new InternalSearchHit(1, "1", "histogram", json, null), Histogram.class, properties);
+        properties[1] = "samples";
+        h = reader.read(new InternalSearchHit(1, "1", "histogram", json, null), Histogram.class, properties);
+        AssertJUnit.assertNull(h.getTags());
+        AssertJUnit.assertTrue(Arrays.equals(histogram.getSamples(), h.getSamples()));
+
+        // Projections past the cached ones are still read
+        for (int i = 1; i <= 100; i++) {
+            properties = new String[i];
+            Arrays.fill(properties, "name");
+            h = reader.read(new InternalSearchHit(1, "1", "histogram", json, null), Histogram.class, properties);
+            AssertJUnit.assertEquals("cpu", h.getName());
+            AssertJUnit.assertNull(h.getTags());
+        }
+    }
+
+    @Test
+    public void testReadBytes() throws ObjectContextSerializationException, IOException {
+        Tweet tweet = new Tweet();
+        tweet.setUser("aloiscochard");
+
+        mapper.add(Tweet.class);
+        byte[] json = writer.write(tweet).copiedBytes();
+        // Source in the middle of a larger buffer
+        byte[] buffer = new byte[json.length + 8];
+        System.arraycopy(json, 0, buffer, 4, json.length);
+
+        Tweet t = reader.read(Tweet.class, "1", buffer, 4, json.length);
+        AssertJUnit.assertEquals(tweet.getUser(), t.getUser());
+    }
+
+    @Test
+    public void testReadInto() throws ObjectContextSerializationException, IOException {
+        mapper.add(User.class);
+        mapper.add(Node.class);
+        mapper.add(Measure.class);
+
+        User user = new User();
+        user.setName("alois");
+        EmailContact email = new EmailContact();
+        email.setEmail("user@domain.ext");
+        user.setContacts(new ArrayList<Contact>(Arrays.asList(email)));
+        User target = reader.read(new InternalSearchHit(1, "1", "user", writer.write(user).copiedBytes(), null));
+        Collection<Contact> contacts = target.getContacts();
+
+        // Collections are refilled, missing properties reset
+        String json = "{\"_class\":\"org.elasticsearch.osem.pojo.users.User\",\"contacts\":[{\"_class\":\"org.elasticsearch.osem.pojo.users.PhoneContact\","
+                + "\"number\":\"++XX\"},{\"_class\":\"org.elasticsearch.osem.pojo.users.PhoneContact\",\"number\":\"++YY\"}]}";
+        User u = reader.readInto(new InternalSearchHit(1, "2", "user", json.getBytes(), null), target);
+        AssertJUnit.assertSame(target, u);
+        AssertJUnit.assertSame(contacts, u.getContacts());
+        AssertJUnit.assertEquals(2, contacts.size());
+        AssertJUnit.assertEquals("++XX", ((PhoneContact) contacts.iterator().next()).getNumber());
+        AssertJUnit.assertNull(u.getName());
+
+        // Nested objects are reused
+        Node parent = new Node();
+        parent.setName("root");
+        Node node = new Node();
+        node.setName("child");
+        node.setParent(parent);
+        byte[] bytes = writer.write(node).copiedBytes();
+        Node n = reader.read(new InternalSearchHit(1, "1", "node", bytes, null));
+        Node p = n.getParent();
+        p.setName("other");
+        AssertJUnit.assertSame(n, reader.readInto(new InternalSearchHit(1, "1", "node", bytes, null), n));
+        AssertJUnit.assertSame(p, n.getParent());
+        AssertJUnit.assertEquals("root", p.getName());
+
+        // Primitives are reset to their default value
+        Measure measure = new Measure("ms", 12.5D);
+        json = "{\"_class\":\"org.elasticsearch.osem.pojo.metrics.Measure\",\"measure_unit\":\"s\"}";
+        List<Measure> measures = reader.readAll(new InternalSearchHits(new InternalSearchHit[] {
+                new InternalSearchHit(1, "1", "measure", json.getBytes(), null), new InternalSearchHit(2, "2", "measure", json.getBytes(), null) },
+                2, 1F), Arrays.asList(measure));
+        AssertJUnit.assertSame(measure, measures.get(0));
+        AssertJUnit.assertEquals("s", measure.getUnit());
+        AssertJUnit.assertEquals(0D, measure.getValue());
+        AssertJUnit.assertEquals("2", measures.get(1).getId());
     }
 
 }
@@ -23,8 +23,28 @@ package org.elasticsearch.osem.core.impl;
  * @author alois.cochard
  *
  */
-import org.testng.annotations.BeforeMethod;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.osem.core.ObjectContextSerializationException;
 import org.elasticsearch.osem.core.ObjectContextWriter;
+import org.elasticsearch.osem.pojo.graph.Node;
+import org.elasticsearch.osem.pojo.metrics.Report;
+import org.elasticsearch.osem.pojo.users.User;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
 
 public class ObjectContextWriterImplTest extends AbstractObjectContextTest {
 
@@ -32,7 +52,172 @@ public class ObjectContextWriterImplTest extends AbstractObjectContextTest {
 
     @BeforeMethod()
 	public void setUp() {
-        writer = new ObjectContextWriterImpl(createAttributes(), createSignatures());
+        writer = new ObjectContextWriterImpl(createAttributes(), createSignatures(), createAccessors());
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        User user = new User();
+        user.setName("aloiscochard");
+
+        // Writing twice to replay the cached plan
+        writer.write(user);
+        byte[] bytes = writer.write(user).copiedBytes();
+        Map<String, Object> source = JsonXContent.jsonXContent.createParser(bytes).mapAndClose();
+
+        AssertJUnit.assertEquals("aloiscochard", source.get("name"));
+        AssertJUnit.assertEquals(User.class.getCanonicalName(), source.get(ObjectContextImpl.CLASS_FIELD_NAME));
+        AssertJUnit.assertTrue(source.containsKey("contacts"));
+        AssertJUnit.assertNull(source.get("contacts"));
+        // Null "_id" is filtered for automatic id generation
+        AssertJUnit.assertFalse(source.containsKey("_id"));
+    }
+
+    @Test
+    public void testWriteOrder() throws IOException {
+        User user = new User();
+        user.setName("aloiscochard");
+
+        // Class first, then properties sorted by name, whatever the writer instance
+        String expected = "{\"_class\":\"" + User.class.getCanonicalName() + "\",\"contacts\":null,\"name\":\"aloiscochard\"}";
+        AssertJUnit.assertEquals(expected, writer.write(user).string());
+        ObjectContextWriter other = new ObjectContextWriterImpl(createAttributes(), createSignatures(), createAccessors());
+        AssertJUnit.assertEquals(expected, other.write(user).string());
+    }
+
+    @Test
+    public void testWriteMapOrder() throws IOException {
+        // Equal maps iterating their keys in different orders
+        Map<String, Integer> small = new HashMap<String, Integer>(4);
+        Map<String, Integer> large = new HashMap<String, Integer>(64);
+        for (String key : new String[] { "hits", "misses", "timeouts", "errors" }) {
+            small.put(key, 1);
+            large.put(key, 1);
+        }
+        Report report = new Report();
+        report.setCounters(small);
+        String expected = writer.write(report).string();
+        report.setCounters(large);
+        AssertJUnit.assertEquals(expected, writer.write(report).string());
+        AssertJUnit.assertTrue(expected.contains("{\"errors\":1,\"hits\":1,\"misses\":1,\"timeouts\":1}"));
+    }
+
+    @Test
+    public void testWriteStreaming() throws IOException {
+        User user = new User();
+        user.setName("aloiscochard");
+        String expected = writer.write(user).string();
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writer.write(user, stream);
+        AssertJUnit.assertEquals(expected, new String(stream.toByteArray()));
+
+        // Many objects sharing the same buffer
+        XContentBuilder builder = JsonXContent.unCachedContentBuilder();
+        writer.write(user, builder);
+        writer.write(user, builder);
+        XContentParser parser = JsonXContent.jsonXContent.createParser(builder.copiedBytes());
+        int count = 0;
+        while (parser.nextToken() != null) {
+            AssertJUnit.assertEquals(XContentParser.Token.START_OBJECT, parser.currentToken());
+            parser.skipChildren();
+            count++;
+        }
+        AssertJUnit.assertEquals(2, count);
+    }
+
+    @Test
+    public void testWritePooled() throws IOException {
+        ObjectContextWriter pooled = new ObjectContextWriterImpl(createAttributes(), createSignatures(), createAccessors(),
+                ImmutableSettings.settingsBuilder().put(ObjectContextWriterImpl.POOL_SIZE_SETTING, 1).build());
+        User user = new User();
+        user.setName("aloiscochard");
+        String expected = writer.write(user).string();
+
+        XContentBuilder first = pooled.write(user);
+        AssertJUnit.assertEquals(expected, first.string());
+        pooled.release(first);
+        // Releasing twice must not hand the same buffer to two builders
+        pooled.release(first);
+
+        XContentBuilder second = pooled.write(user);
+        XContentBuilder third = pooled.write(user);
+        AssertJUnit.assertSame(first.unsafeStream(), second.unsafeStream());
+        AssertJUnit.assertNotSame(second.unsafeStream(), third.unsafeStream());
+        AssertJUnit.assertEquals(expected, second.string());
+        AssertJUnit.assertEquals(expected, third.string());
+    }
+
+    @Test
+    public void testWriteGraph() throws IOException {
+        ObjectContextWriter bounded = new ObjectContextWriterImpl(createAttributes(), createSignatures(), createAccessors(),
+                ImmutableSettings.settingsBuilder().put(ObjectContextWriterImpl.MAX_DEPTH_SETTING, 3).build());
+        Node root = new Node();
+        Node child = new Node();
+        child.setParent(root);
+        Node grandChild = new Node();
+        grandChild.setParent(child);
+        bounded.write(grandChild);
+
+        // Too deep
+        Node greatGrandChild = new Node();
+        greatGrandChild.setParent(grandChild);
+        try {
+            bounded.write(greatGrandChild);
+            AssertJUnit.fail();
+        } catch (ObjectContextSerializationException e) {
+            AssertJUnit.assertTrue(e.getCause().getMessage().contains("depth"));
+        }
+
+        // Back-reference
+        root.setParent(child);
+        try {
+            writer.write(root);
+            AssertJUnit.fail();
+        } catch (ObjectContextSerializationException e) {
+            AssertJUnit.assertTrue(e.getCause().getMessage().contains("Cycle"));
+        }
+    }
+
+    @Test
+    public void testWriteAll() throws IOException {
+        List<User> users = new ArrayList<User>();
+        for (int i = 0; i < 1000; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            users.add(user);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<XContentBuilder> builders = writer.writeAll(users, executor);
+            AssertJUnit.assertEquals(users.size(), builders.size());
+            for (int i = 0; i < users.size(); i++) {
+                Map<String, Object> source = JsonXContent.jsonXContent.createParser(builders.get(i).copiedBytes()).mapAndClose();
+                AssertJUnit.assertEquals("user" + i, source.get("name"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        ObjectContextWriter parallel = new ObjectContextWriterImpl(createAttributes(), createSignatures(), createAccessors(),
+                ImmutableSettings.settingsBuilder().put(ObjectContextWriterImpl.THREADS_SETTING, 2).put(ObjectContextWriterImpl.BATCH_SIZE_SETTING, 1)
+                        .build());
+        List<User> users = new ArrayList<User>();
+        users.add(new User());
+        users.add(new User());
+        AssertJUnit.assertEquals(2, parallel.writeAll(users).size());
+
+        // The threads of the executor are shut down
+        parallel.close();
+        try {
+            parallel.writeAll(users);
+            AssertJUnit.fail();
+        } catch (RejectedExecutionException e) {
+        }
     }
 
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.pojo.metrics;
+
+import org.elasticsearch.osem.annotations.Access;
+import org.elasticsearch.osem.annotations.Indexable;
+import org.elasticsearch.osem.annotations.Searchable;
+
+/**
+ * 
+ * @author alois.cochard
+ *
+ */
+@Searchable(access = Access.FIELD)
+public class Measure {
+
+    @Indexable(indexName = "_id")
+    private String id;
+
+    @Indexable(indexName = "measure_unit")
+    private String unit;
+
+    private double value;
+
+    private transient String label;
+
+    public Measure() {
+    }
+
+    public Measure(String unit, double value) {
+        this.unit = unit;
+        this.value = value;
+        this.label = value + " " + unit;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.pojo.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.SortedMap;
+
+import org.elasticsearch.osem.annotations.Searchable;
+
+/**
+ * 
+ * @author alois.cochard
+ *
+ */
+@Searchable
+public class Ranking {
+
+    private SortedMap<String, Integer> scores;
+
+    private LinkedHashMap<String, String> labels;
+
+    public SortedMap<String, Integer> getScores() {
+        return scores;
+    }
+
+    public void setScores(SortedMap<String, Integer> scores) {
+        this.scores = scores;
+    }
+
+    public LinkedHashMap<String, String> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(LinkedHashMap<String, String> labels) {
+        this.labels = labels;
+    }
+
+}
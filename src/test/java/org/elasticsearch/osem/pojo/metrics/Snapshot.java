@@ -0,0 +1,56 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.osem.pojo.metrics;
+
+import java.util.Date;
+
+import org.elasticsearch.osem.annotations.Searchable;
+import org.elasticsearch.osem.annotations.Serializable;
+
+/**
+ * 
+ * @author alois.cochard
+ *
+ */
+@Searchable
+public class Snapshot {
+
+    private Date timestamp;
+
+    private Date day;
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    @Serializable(format = "millis")
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Date getDay() {
+        return day;
+    }
+
+    @Serializable(format = "yyyy/MM/dd")
+    public void setDay(Date day) {
+        this.day = day;
+    }
+
+}